@@ -0,0 +1,228 @@
+package io.havah.test.incrementalairdrop.cases;
+
+import foundation.icon.icx.IconService;
+import foundation.icon.icx.KeyWallet;
+import foundation.icon.icx.Wallet;
+import foundation.icon.icx.data.Address;
+import foundation.icon.icx.data.Block;
+import foundation.icon.icx.data.Bytes;
+import foundation.icon.icx.data.TransactionResult;
+import foundation.icon.icx.transport.http.HttpProvider;
+import foundation.icon.test.Env;
+import foundation.icon.test.TestBase;
+import foundation.icon.test.TransactionHandler;
+import io.havah.test.incrementalairdrop.score.IncrementalAirdropScore;
+import io.havah.test.incrementalairdrop.score.LogFinder;
+import io.havah.test.incrementalairdrop.score.SampleTokenScore;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static foundation.icon.test.Env.LOG;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalAirdropTest extends TestBase {
+    private static IconService iconService;
+    private static TransactionHandler txHandler;
+
+    private static Wallet govWallet;
+    private static Wallet[] owners = new KeyWallet[5];
+    private static SampleTokenScore hsp20token;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        Env.Chain chain = Env.getDefaultChain();
+        iconService = new IconService(new HttpProvider(chain.getEndpointURL(3)));
+        txHandler = new TransactionHandler(iconService, chain);
+        govWallet = txHandler.getChain().godWallet;
+
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(300));
+        for(int i=0; i<owners.length; i++) {
+            owners[i] = KeyWallet.create();
+            Bytes txHash = txHandler.transfer(owners[i].getAddress(), amount);
+            assertSuccess(txHandler.getResult(txHash));
+        }
+
+        hsp20token = SampleTokenScore.mustDeploy(txHandler, govWallet, BigInteger.valueOf(18), amount);
+    }
+
+    byte[] _concat(byte[] a, byte[] b) {
+        byte[] c = new byte[a.length + b.length];
+        System.arraycopy(a, 0, c, 0, a.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    protected byte[] _makeHash(Address address, BigInteger amount) throws NoSuchAlgorithmException {
+        byte[] leaf = new byte[53];
+        leaf[0] = (byte) (address.isContract() ? 1 : 0);
+        System.arraycopy(address.getBody(), 0, leaf, 1, 20);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        return md.digest(leaf);
+    }
+
+    protected byte[] _hashPair(byte[] left, byte[] right) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        return md.digest(_concat(left, right));
+    }
+
+    // builds the levels of the tree of the depth from the leaves, the missing nodes are the roots of the empty subtrees
+    protected List<List<byte[]>> _makeTree(List<byte[]> leaves, int depth) throws NoSuchAlgorithmException {
+        List<List<byte[]>> levels = new ArrayList<>();
+        List<byte[]> level = new ArrayList<>(leaves);
+        byte[] zero = new byte[32];
+        for (int i = 0; i < depth; i++) {
+            levels.add(level);
+            List<byte[]> next = new ArrayList<>();
+            for (int j = 0; j < level.size() || j == 0; j += 2) {
+                byte[] left = j < level.size() ? level.get(j) : zero;
+                byte[] right = j + 1 < level.size() ? level.get(j + 1) : zero;
+                next.add(_hashPair(left, right));
+            }
+            zero = _hashPair(zero, zero);
+            level = next;
+        }
+        levels.add(level);
+        return levels;
+    }
+
+    protected byte[][] _getProof(List<byte[]> leaves, int depth, int index) throws NoSuchAlgorithmException {
+        List<List<byte[]>> levels = _makeTree(leaves, depth);
+        byte[][] proof = new byte[depth][];
+        byte[] zero = new byte[32];
+        for (int i = 0; i < depth; i++, index >>= 1) {
+            int sibling = index ^ 1;
+            proof[i] = sibling < levels.get(i).size() ? levels.get(i).get(sibling) : zero;
+            zero = _hashPair(zero, zero);
+        }
+        return proof;
+    }
+
+    protected byte[] _getRoot(List<byte[]> leaves, int depth) throws NoSuchAlgorithmException {
+        return _makeTree(leaves, depth).get(depth).get(0);
+    }
+
+    protected static BigInteger _getTimestamp() throws IOException {
+        Block lastBlk = iconService.getLastBlock().execute();
+        return lastBlk.getTimestamp();
+    }
+
+    protected void _appendLeaves(IncrementalAirdropScore score, BigInteger id, List<byte[]> leaves, Address[] recipients,
+                                 BigInteger[] amounts, int depth) throws Exception {
+        BigInteger from = BigInteger.valueOf(leaves.size());
+        for(int i=0; i<recipients.length; i++) {
+            leaves.add(_makeHash(recipients[i], amounts[i]));
+        }
+        byte[] root = _getRoot(leaves, depth);
+
+        TransactionResult result = score.appendLeaves(govWallet, id, recipients, amounts);
+        assertSuccess(result);
+        LogFinder.ensureLeavesAppended(result, score.getAddress(), id, from, BigInteger.valueOf(recipients.length), root);
+        assertArrayEquals(root, score.merkleRoot(id));
+    }
+
+    @Test
+    void appendAndClaimTest() throws Exception {
+        LOG.infoEntering("IncrementalAirdrop", "appendAndClaimTest");
+
+        IncrementalAirdropScore score = IncrementalAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(150L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+
+        int depth = 4;
+        BigInteger startTime = _getTimestamp();
+        assertFailure(score.addAirdrop(owners[0], hsp20token.getAddress(), BigInteger.valueOf(depth), startTime, null, amount));
+        assertFailure(score.addAirdrop(govWallet, hsp20token.getAddress(), BigInteger.valueOf(31), startTime, null, amount));
+        TransactionResult result = score.addAirdrop(govWallet, hsp20token.getAddress(), BigInteger.valueOf(depth), startTime, null, amount);
+        assertSuccess(result);
+        BigInteger id = score.lastId();
+        LogFinder.ensureAirdropAdded(result, score.getAddress(), id, hsp20token.getAddress(), BigInteger.valueOf(depth),
+                startTime, BigInteger.ZERO, amount.toString());
+
+        Address[] recipients = new Address[owners.length];
+        BigInteger[] amounts = new BigInteger[owners.length];
+        for(int i=0; i<owners.length; i++) {
+            recipients[i] = owners[i].getAddress();
+            amounts[i] = ICX.multiply(BigInteger.valueOf(10L * (i + 1)));
+        }
+
+        List<byte[]> leaves = new ArrayList<>();
+        assertFailure(score.appendLeaves(owners[0], id, Arrays.copyOf(recipients, 3), Arrays.copyOf(amounts, 3)));
+        _appendLeaves(score, id, leaves, Arrays.copyOf(recipients, 3), Arrays.copyOf(amounts, 3), depth);
+        byte[][] proof1 = _getProof(leaves, depth, 1);
+        byte[] oldRoot = score.merkleRoot(id);
+
+        _appendLeaves(score, id, leaves, Arrays.copyOfRange(recipients, 3, 5), Arrays.copyOfRange(amounts, 3, 5), depth);
+        assertEquals(BigInteger.valueOf(5), score.info(id).get("leaves"));
+        assertTrue(score.isKnownRoot(id, oldRoot));
+
+        LOG.info(">>> claim with the proof of the previous root");
+        assertTrue(score.isClaimable(id, BigInteger.ONE, recipients[1], amounts[1], proof1));
+        assertFalse(score.isClaimable(id, BigInteger.TWO, recipients[1], amounts[1], proof1));
+        assertFailure(score.claim(owners[1], id, BigInteger.ONE, amounts[1].add(BigInteger.ONE), proof1));
+        result = score.claim(owners[1], id, BigInteger.ONE, amounts[1], proof1);
+        assertSuccess(result);
+        LogFinder.ensureClaimed(result, score.getAddress(), id, hsp20token.getAddress(), recipients[1], amounts[1]);
+        assertTrue(score.isClaimed(id, BigInteger.ONE));
+        assertFailure(score.claim(owners[1], id, BigInteger.ONE, amounts[1], proof1));
+
+        LOG.info(">>> giveaway with the proof of the last root");
+        byte[][] proof4 = _getProof(leaves, depth, 4);
+        BigInteger oldBalance = hsp20token.balanceOf(recipients[4]);
+        result = score.giveaway(govWallet, id, BigInteger.valueOf(4), recipients[4], amounts[4], proof4);
+        assertSuccess(result);
+        LogFinder.ensureClaimed(result, score.getAddress(), id, hsp20token.getAddress(), recipients[4], amounts[4]);
+        assertEquals(oldBalance.add(amounts[4]), hsp20token.balanceOf(recipients[4]));
+        assertEquals(amounts[1].add(amounts[4]), score.info(id).get("claimed"));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void rootHistoryTest() throws Exception {
+        LOG.infoEntering("IncrementalAirdrop", "rootHistoryTest");
+
+        IncrementalAirdropScore score = IncrementalAirdropScore.mustDeploy(txHandler, govWallet);
+        int depth = 2;
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), BigInteger.valueOf(depth), _getTimestamp(), null, null));
+        BigInteger id = score.lastId();
+
+        List<byte[]> leaves = new ArrayList<>();
+        Address[] recipients = new Address[] { owners[0].getAddress() };
+        BigInteger[] amounts = new BigInteger[] { ICX };
+        _appendLeaves(score, id, leaves, recipients, amounts, depth);
+        byte[] firstRoot = score.merkleRoot(id);
+        _appendLeaves(score, id, leaves, new Address[] { owners[1].getAddress(), owners[2].getAddress(), owners[3].getAddress() },
+                new BigInteger[] { ICX, ICX, ICX }, depth);
+        assertTrue(score.isKnownRoot(id, firstRoot));
+
+        LOG.info(">>> the tree is full");
+        assertFailure(score.appendLeaves(govWallet, id, new Address[] { owners[4].getAddress() }, amounts));
+
+        LOG.info(">>> the oldest root is evicted");
+        IncrementalAirdropScore score2 = IncrementalAirdropScore.mustDeploy(txHandler, govWallet);
+        depth = 6;
+        assertSuccess(score2.addAirdrop(govWallet, hsp20token.getAddress(), BigInteger.valueOf(depth), _getTimestamp(), null, null));
+        leaves.clear();
+        List<byte[]> roots = new ArrayList<>();
+        for(int i=0; i<33; i++) {
+            _appendLeaves(score2, id, leaves, recipients, amounts, depth);
+            roots.add(score2.merkleRoot(id));
+        }
+        assertFalse(score2.isKnownRoot(id, roots.get(0)));
+        assertTrue(score2.isKnownRoot(id, roots.get(1)));
+        assertTrue(score2.isKnownRoot(id, roots.get(32)));
+
+        LOG.infoExiting();
+    }
+}
@@ -0,0 +1,184 @@
+package io.havah.test.incrementalairdrop.score;
+
+import foundation.icon.icx.Wallet;
+import foundation.icon.icx.data.Address;
+import foundation.icon.icx.data.TransactionResult;
+import foundation.icon.icx.transport.jsonrpc.RpcArray;
+import foundation.icon.icx.transport.jsonrpc.RpcObject;
+import foundation.icon.icx.transport.jsonrpc.RpcValue;
+import foundation.icon.test.ResultTimeoutException;
+import foundation.icon.test.TransactionFailureException;
+import foundation.icon.test.TransactionHandler;
+import foundation.icon.test.score.Score;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+
+import static foundation.icon.test.Env.LOG;
+
+public class IncrementalAirdropScore extends Score {
+    public IncrementalAirdropScore(Score other) {
+        super(other);
+    }
+
+    public static IncrementalAirdropScore mustDeploy(TransactionHandler txHandler, Wallet wallet)
+            throws ResultTimeoutException, TransactionFailureException, IOException {
+        LOG.infoEntering("deploy", "IncrementalAirdrop");
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_name", new RpcValue("IncrementalAirdrop"))
+                .build();
+
+        Score score = txHandler.deploy(wallet, getFilePath("incremental-airdrop"), params);
+        LOG.infoExiting("scoreAddr = " + score.getAddress());
+        return new IncrementalAirdropScore(score);
+    }
+
+    public TransactionResult addAirdrop(Wallet wallet, Address token, BigInteger depth, BigInteger startTime, BigInteger endTime,
+                                        BigInteger totalAmount) throws IOException, ResultTimeoutException {
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_token", new RpcValue(token))
+                .put("_depth", new RpcValue(depth))
+                .put("_startTime", new RpcValue(startTime));
+        if(endTime != null) params.put("_endTime", new RpcValue(endTime));
+        if(totalAmount != null) params.put("_totalAmount", new RpcValue(totalAmount));
+
+        return invokeAndWaitResult(wallet, "addAirdrop", params.build());
+    }
+
+    public TransactionResult updateAirdrop(Wallet wallet, BigInteger id, BigInteger startTime, BigInteger endTime, BigInteger totalAmount)
+            throws IOException, ResultTimeoutException {
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_startTime", new RpcValue(startTime));
+        if(endTime != null) params.put("_endTime", new RpcValue(endTime));
+        if(totalAmount != null) params.put("_totalAmount", new RpcValue(totalAmount));
+
+        return invokeAndWaitResult(wallet, "updateAirdrop", params.build());
+    }
+
+    public TransactionResult appendLeaves(Wallet wallet, BigInteger id, Address[] recipients, BigInteger[] amounts)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder recipientArray = new RpcArray.Builder();
+        RpcArray.Builder amountArray = new RpcArray.Builder();
+        for(int i=0; i<recipients.length; i++) {
+            recipientArray.add(new RpcValue(recipients[i]));
+            amountArray.add(new RpcValue(amounts[i]));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_recipients", recipientArray.build())
+                .put("_amounts", amountArray.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "appendLeaves", params);
+    }
+
+    public TransactionResult claim(Wallet wallet, BigInteger id, BigInteger index, BigInteger amount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] node : proof) {
+            array.add(new RpcValue(node));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "claim", params);
+    }
+
+    public TransactionResult giveaway(Wallet wallet, BigInteger id, BigInteger index, Address recipient, BigInteger amount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] node : proof) {
+            array.add(new RpcValue(node));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_recipient", new RpcValue(recipient))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "giveaway", params);
+    }
+
+    public TransactionResult withdraw(Wallet wallet, Address token, BigInteger amount, Address recipient)
+            throws IOException, ResultTimeoutException {
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_token", new RpcValue(token))
+                .put("_amount", new RpcValue(amount));
+        if(recipient != null) params.put("_recipient", new RpcValue(recipient));
+
+        return invokeAndWaitResult(wallet, "withdraw", params.build());
+    }
+
+    public BigInteger lastId() throws IOException {
+        return call("lastId", null).asInteger();
+    }
+
+    public byte[] merkleRoot(BigInteger id) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .build();
+        return call("merkleRoot", params).asByteArray();
+    }
+
+    public boolean isKnownRoot(BigInteger id, byte[] root) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_root", new RpcValue(root))
+                .build();
+        return call("isKnownRoot", params).asBoolean();
+    }
+
+    public Map info(BigInteger id) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .build();
+        RpcObject obj = call("info", params).asObject();
+        return Map.of(
+                "id", obj.getItem("id").asInteger(),
+                "token", obj.getItem("token").asAddress(),
+                "depth", obj.getItem("depth").asInteger(),
+                "start", obj.getItem("start").asInteger(),
+                "end", obj.getItem("end").asInteger(),
+                "total", obj.getItem("total").asInteger(),
+                "claimed", obj.getItem("claimed").asInteger(),
+                "remain", obj.getItem("remain").asInteger(),
+                "leaves", obj.getItem("leaves").asInteger()
+        );
+    }
+
+    public boolean isClaimed(BigInteger id, BigInteger index) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .build();
+        return call("isClaimed", params).asBoolean();
+    }
+
+    public boolean isClaimable(BigInteger id, BigInteger index, Address address, BigInteger amount, byte[][] proof) throws IOException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] node : proof) {
+            array.add(new RpcValue(node));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_address", new RpcValue(address))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+        return call("isClaimable", params).asBoolean();
+    }
+}
@@ -0,0 +1,64 @@
+package io.havah.contract;
+
+import score.Address;
+import score.ObjectReader;
+import score.ObjectWriter;
+
+import java.math.BigInteger;
+
+public class Airdrop {
+    // the tree has 2^depth leaves at most
+    public static final int MAX_DEPTH = 30;
+    // the number of the recent roots which the claims are verified with
+    public static final int ROOT_HISTORY_SIZE = 32;
+
+    int id;
+    Address token;
+    int depth;
+    long startTime;
+    long endTime;
+    BigInteger totalAmount;
+    // the index of the next leaf
+    int nextIndex;
+    // the number of the roots made by the appends, the last root is at (rootCount - 1) % ROOT_HISTORY_SIZE
+    int rootCount;
+
+    private Airdrop() {}
+
+    public Airdrop(int id, Address token, int depth, long startTime, long endTime, BigInteger totalAmount) {
+        this.id = id;
+        this.token = token;
+        this.depth = depth;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.totalAmount = totalAmount;
+    }
+
+    public static void writeObject(ObjectWriter w, Airdrop s) {
+        w.beginList(8);
+        w.write(s.id);
+        w.write(s.token);
+        w.write(s.depth);
+        w.write(s.startTime);
+        w.write(s.endTime);
+        w.writeNullable(s.totalAmount);
+        w.write(s.nextIndex);
+        w.write(s.rootCount);
+        w.end();
+    }
+
+    public static Airdrop readObject(ObjectReader r) {
+        r.beginList();
+        Airdrop s = new Airdrop(
+                r.readInt(),
+                r.readAddress(),
+                r.readInt(),
+                r.readLong(),
+                r.readLong(),
+                r.readNullable(BigInteger.class));
+        s.nextIndex = r.readInt();
+        s.rootCount = r.readInt();
+        r.end();
+        return s;
+    }
+}
@@ -0,0 +1,433 @@
+package io.havah.contract;
+
+import score.*;
+import score.annotation.EventLog;
+import score.annotation.External;
+import score.annotation.Optional;
+import score.annotation.Payable;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+public class IncrementalAirdrop {
+    protected static final Address ZERO_ADDRESS = Address.fromString("hx0000000000000000000000000000000000000000");
+    protected static final VarDB<String> name = Context.newVarDB("name", String.class);
+    protected static final VarDB<Address> admin = Context.newVarDB("admin", Address.class);
+    protected static final DictDB<Integer, Airdrop> airdrops = Context.newDictDB("airdrops", Airdrop.class);
+    protected static final VarDB<Integer> lastId = Context.newVarDB("last_id", Integer.class);
+    // the left nodes of the levels on the path of the next leaf
+    protected static final BranchDB<Integer, DictDB<Integer, byte[]>> frontiers = Context.newBranchDB("frontiers", byte[].class);
+    // ring of the recent roots, and the roots in the ring to look up
+    protected static final BranchDB<Integer, DictDB<Integer, byte[]>> rootHistory = Context.newBranchDB("root_history", byte[].class);
+    protected static final BranchDB<Integer, DictDB<byte[], Boolean>> knownRoots = Context.newBranchDB("known_roots", Boolean.class);
+    // 256 claimed flags of the leaves in a word
+    protected static final BranchDB<Integer, DictDB<Integer, BigInteger>> claimedBitmap = Context.newBranchDB("claimed_bitmap", BigInteger.class);
+    protected static final DictDB<Integer, BigInteger> totalClaimed = Context.newDictDB("total_claimed", BigInteger.class);
+    // roots of the empty subtrees of the levels, ZERO_HASHES[0] is 32 zero bytes and ZERO_HASHES[n + 1] is
+    // keccak256(ZERO_HASHES[n] + ZERO_HASHES[n]). A leaf path uses the levels below MAX_DEPTH.
+    protected static final byte[][] ZERO_HASHES = _decodeHashes(new byte[32],
+            "ad3228b676f7d3cd4284a5443f17f1962b36e491b30a40b2405849e597ba5fb5",
+            "b4c11951957c6f8f642c4af61cd6b24640fec6dc7fc607ee8206a99e92410d30",
+            "21ddb9a356815c3fac1026b6dec5df3124afbadb485c9ba5a3e3398a04b7ba85",
+            "e58769b32a1beaf1ea27375a44095a0d1fb664ce2dd358e7fcbfb78c26a19344",
+            "0eb01ebfc9ed27500cd4dfc979272d1f0913cc9f66540d7e8005811109e1cf2d",
+            "887c22bd8750d34016ac3c66b5ff102dacdd73f6b014e710b51e8022af9a1968",
+            "ffd70157e48063fc33c97a050f7f640233bf646cc98d9524c6b92bcf3ab56f83",
+            "9867cc5f7f196b93bae1e27e6320742445d290f2263827498b54fec539f756af",
+            "cefad4e508c098b9a7e1d8feb19955fb02ba9675585078710969d3440f5054e0",
+            "f9dc3e7fe016e050eff260334f18a5d4fe391d82092319f5964f2e2eb7c1c3a5",
+            "f8b13a49e282f609c317a833fb8d976d11517c571d1221a265d25af778ecf892",
+            "3490c6ceeb450aecdc82e28293031d10c7d73bf85e57bf041a97360aa2c5d99c",
+            "c1df82d9c4b87413eae2ef048f94b4d3554cea73d92b0f7af96e0271c691e2bb",
+            "5c67add7c6caf302256adedf7ab114da0acfe870d449a3a489f781d659e8becc",
+            "da7bce9f4e8618b6bd2f4132ce798cdc7a60e7e1460a7299e3c6342a579626d2",
+            "2733e50f526ec2fa19a22b31e8ed50f23cd1fdf94c9154ed3a7609a2f1ff981f",
+            "e1d3b5c807b281e4683cc6d6315cf95b9ade8641defcb32372f1c126e398ef7a",
+            "5a2dce0a8a7f68bb74560f8f71837c2c2ebbcbf7fffb42ae1896f13f7c7479a0",
+            "b46a28b6f55540f89444f63de0378e3d121be09e06cc9ded1c20e65876d36aa0",
+            "c65e9645644786b620e2dd2ad648ddfcbf4a7e5b1a3a4ecfe7f64667a3f0b7e2",
+            "f4418588ed35a2458cffeb39b93d26f18d2ab13bdce6aee58e7b99359ec2dfd9",
+            "5a9c16dc00d6ef18b7933a6f8dc65ccb55667138776f7dea101070dc8796e377",
+            "4df84f40ae0c8229d0d6069e5c8f39a7c299677a09d367fc7b05e3bc380ee652",
+            "cdc72595f74c7b1043d0e1ffbab734648c838dfb0527d971b602bc216c9619ef",
+            "0abf5ac974a1ed57f4050aa510dd9c74f508277b39d7973bb2dfccc5eeb0618d",
+            "b8cd74046ff337f0a7bf2c8e03e10f642c1886798d71806ab1e888d9e5ee87d0",
+            "838c5655cb21c6cb83313b5a631175dff4963772cce9108188b34ac87c81c41e",
+            "662ee4dd2dd7b2bc707961b1e646c4047669dcb6584f0d8d770daf5d7e7deb2e",
+            "388ab20e2573d171a88108e79d820e98f26c0b84aa8b2f4aa4968dbb818ea322"
+    );
+
+    protected boolean _isCaller(Address address) {
+        return Context.getCaller().equals(address);
+    }
+
+    protected void _require(boolean condition, String err) {
+        if (!condition) {
+            Context.revert(err);
+        }
+    }
+
+    @External
+    public void setAdmin(Address _admin) {
+        _onlyAdmin();
+        admin.set(_admin);
+    }
+
+    @External(readonly = true)
+    public Address admin() {
+        return admin.getOrDefault(Context.getOwner());
+    }
+
+    @External(readonly = true)
+    public String name() {
+        return name.get();
+    }
+
+    protected void _onlyAdmin() {
+        _require(_isCaller(admin()), "Only administrator can call this method");
+    }
+
+    protected void _checkContract(Address address) {
+        _require(address.equals(ZERO_ADDRESS) || address.isContract(), "Not contract address");
+    }
+
+    protected void _checkTime(long start, long end) {
+        _require(end == 0 || end > start, "Invalid time");
+    }
+
+    protected void _checkAmount(BigInteger amount) {
+        _require(amount == null || amount.signum() > 0, "Invalid amount");
+    }
+
+    protected void _checkDepth(int depth) {
+        _require(depth > 0 && depth <= Airdrop.MAX_DEPTH, "Invalid depth");
+    }
+
+    protected void _checkExistId(int id) {
+        _require(id > -1 && id <= lastId.get(), "Invalid id");
+    }
+
+    protected void _checkNotStarted(Airdrop airdrop) {
+        _require(Context.getBlockTimestamp() < airdrop.startTime, "Already started airdrop");
+    }
+
+    protected void _checkNotEnded(Airdrop airdrop) {
+        _require(airdrop.endTime == 0 || Context.getBlockTimestamp() < airdrop.endTime, "Already ended airdrop");
+    }
+
+    protected void _checkOpenAirdrop(Airdrop airdrop) {
+        long time = Context.getBlockTimestamp();
+        _require(time >= airdrop.startTime, "Not open airdrop");
+        if(airdrop.endTime > 0)
+            _require( time < airdrop.endTime, "Not open airdrop");
+    }
+
+    protected boolean _isClaimed(int id, int index) {
+        BigInteger word = claimedBitmap.at(id).get(index >> 8);
+        return word != null && word.testBit(index & 0xff);
+    }
+
+    protected void _setClaimed(int id, int index) {
+        DictDB<Integer, BigInteger> bitmap = claimedBitmap.at(id);
+        int wordIndex = index >> 8;
+        bitmap.set(wordIndex, bitmap.getOrDefault(wordIndex, BigInteger.ZERO).setBit(index & 0xff));
+    }
+
+    // leaf = keccak256(21 bytes address + 32 bytes big-endian amount)
+    protected byte[] _leafHash(Address address, BigInteger amount) {
+        if (amount.signum() < 0 || amount.bitLength() > 256)
+            return null;
+        byte[] leaf = new byte[Address.LENGTH + 32];
+        byte[] addr = address.toByteArray();
+        System.arraycopy(addr, 0, leaf, 0, addr.length);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        return Context.hash("keccak-256", leaf);
+    }
+
+    // pairs are hashed in the order of the positions, not sorted
+    protected byte[] _hashPair(byte[] buf, byte[] left, byte[] right) {
+        System.arraycopy(left, 0, buf, 0, 32);
+        System.arraycopy(right, 0, buf, 32, 32);
+        return Context.hash("keccak-256", buf);
+    }
+
+    // the hashes of the table are in hex, the first one is given as it is
+    protected static byte[][] _decodeHashes(byte[] first, String... hashes) {
+        byte[][] table = new byte[hashes.length + 1][];
+        table[0] = first;
+        for(int i=0; i<hashes.length; i++) {
+            byte[] hash = new byte[32];
+            for(int j=0; j<32; j++) {
+                hash[j] = (byte) Integer.parseInt(hashes[i].substring(j * 2, j * 2 + 2), 16);
+            }
+            table[i + 1] = hash;
+        }
+        return table;
+    }
+
+    protected byte[] _computeRoot(int depth, int index, byte[] leaf, byte[][] proof) {
+        if(proof.length != depth)
+            return null;
+        byte[] buf = new byte[64];
+        byte[] node = leaf;
+        for(int level=0; level<depth; level++) {
+            if((index >> level & 1) == 0) {
+                node = _hashPair(buf, node, proof[level]);
+            } else {
+                node = _hashPair(buf, proof[level], node);
+            }
+        }
+        return node;
+    }
+
+    protected boolean _verifyProof(Airdrop airdrop, int index, Address address, BigInteger amount, byte[][] proof) {
+        if(index < 0 || index >= airdrop.nextIndex)
+            return false;
+        byte[] leaf = _leafHash(address, amount);
+        if(leaf == null)
+            return false;
+        byte[] root = _computeRoot(airdrop.depth, index, leaf, proof);
+        return root != null && knownRoots.at(airdrop.id).getOrDefault(root, false);
+    }
+
+    /*
+     * Appends the leaves to the tree and returns the new root. The frontier keeps the left node of each level on
+     * the path of the next leaf. The path of a leaf stops at its first left level, since the left node there is the
+     * only one the later leaves use. The path of the last leaf is hashed up to the root with the empty subtrees,
+     * but the frontier is written only at its first left level.
+     */
+    protected byte[] _append(Airdrop airdrop, Address[] recipients, BigInteger[] amounts) {
+        int depth = airdrop.depth;
+        DictDB<Integer, byte[]> frontier = frontiers.at(airdrop.id);
+        byte[][] nodes = new byte[depth][];
+        boolean[] changed = new boolean[depth];
+        byte[] buf = new byte[64];
+
+        byte[] node = null;
+        for(int i=0; i<recipients.length; i++) {
+            boolean last = i == recipients.length - 1;
+            boolean recorded = false;
+            int index = airdrop.nextIndex + i;
+            node = _leafHash(recipients[i], amounts[i]);
+            _require(node != null, "Invalid amount");
+            for(int level=0; level<depth; level++) {
+                if((index >> level & 1) == 0) {
+                    // only the first left node is complete, the ones above it are padded with the empty subtrees
+                    if(!recorded) {
+                        nodes[level] = node;
+                        changed[level] = true;
+                        recorded = true;
+                        if(!last)
+                            break;
+                    }
+                    node = _hashPair(buf, node, ZERO_HASHES[level]);
+                } else {
+                    if(nodes[level] == null)
+                        nodes[level] = frontier.get(level);
+                    node = _hashPair(buf, nodes[level], node);
+                }
+            }
+        }
+        for(int level=0; level<depth; level++) {
+            if(changed[level])
+                frontier.set(level, nodes[level]);
+        }
+        airdrop.nextIndex += recipients.length;
+        return node;
+    }
+
+    // the root replaces the oldest one in the ring
+    protected void _pushRoot(Airdrop airdrop, byte[] root) {
+        DictDB<Integer, byte[]> history = rootHistory.at(airdrop.id);
+        DictDB<byte[], Boolean> known = knownRoots.at(airdrop.id);
+        int slot = airdrop.rootCount % Airdrop.ROOT_HISTORY_SIZE;
+        if(airdrop.rootCount >= Airdrop.ROOT_HISTORY_SIZE)
+            known.set(history.get(slot), null);
+        history.set(slot, root);
+        known.set(root, true);
+        airdrop.rootCount++;
+    }
+
+    protected String _getSafeString(Object obj) {
+        return obj == null ? "" : obj.toString();
+    }
+
+    protected void _transfer(Address _token, Address _recipient, BigInteger _amount) {
+        if(_token.equals(ZERO_ADDRESS)) {
+            Context.transfer(_recipient, _amount);
+        } else {
+            Context.call(_token, "transfer", _recipient, _amount);
+        }
+    }
+
+    protected void _claim(int _id, int _index, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        _checkExistId(_id);
+        Airdrop airdrop = airdrops.get(_id);
+        _require(_index >= 0 && _index < airdrop.nextIndex, "Invalid index");
+        _require(!_isClaimed(_id, _index), "Already claimed");
+        _checkOpenAirdrop(airdrop);
+        _require(_verifyProof(airdrop, _index, _recipient, _amount, _proof), "Invalid proof");
+
+        _setClaimed(_id, _index);
+        totalClaimed.set(_id, totalClaimed.getOrDefault(_id, BigInteger.ZERO).add(_amount));
+        _transfer(airdrop.token, _recipient, _amount);
+        Claimed(_id, airdrop.token, _recipient, _amount);
+    }
+
+    public IncrementalAirdrop(String _name) {
+        name.set(_name);
+    }
+
+    @Payable
+    public void fallback() {
+        BigInteger value = Context.getValue();
+        if (value.signum() > 0) {
+            Deposited(Context.getCaller(), value);
+        }
+    }
+
+    @External
+    public void addAirdrop(Address _token, int _depth, long _startTime, @Optional long _endTime, @Optional BigInteger _totalAmount) {
+        _onlyAdmin();
+        _checkContract(_token);
+        _checkDepth(_depth);
+        _checkTime(_startTime, _endTime);
+        _checkAmount(_totalAmount);
+
+        int id = lastId() + 1;
+        airdrops.set(id, new Airdrop(id, _token, _depth, _startTime, _endTime, _totalAmount));
+        lastId.set(id);
+
+        AirdropAdded(id, _token, _depth, _startTime, _endTime, _getSafeString(_totalAmount));
+    }
+
+    @External
+    public void updateAirdrop(int _id, long _startTime, @Optional long _endTime, @Optional BigInteger _totalAmount) {
+        _onlyAdmin();
+        _checkExistId(_id);
+        _checkTime(_startTime, _endTime);
+        _checkAmount(_totalAmount);
+
+        Airdrop airdrop = airdrops.get(_id);
+        _checkNotStarted(airdrop);
+
+        airdrop.startTime = _startTime;
+        airdrop.endTime = _endTime;
+        airdrop.totalAmount = _totalAmount;
+
+        airdrops.set(_id, airdrop);
+        AirdropUpdated(_id, _startTime, _endTime, _getSafeString(_totalAmount));
+    }
+
+    @External
+    public void appendLeaves(int _id, Address[] _recipients, BigInteger[] _amounts) {
+        _onlyAdmin();
+        _checkExistId(_id);
+        int count = _recipients.length;
+        _require(count > 0 && _amounts.length == count, "Invalid length");
+
+        Airdrop airdrop = airdrops.get(_id);
+        _checkNotEnded(airdrop);
+        _require(count <= (1 << airdrop.depth) - airdrop.nextIndex, "Tree is full");
+
+        int from = airdrop.nextIndex;
+        byte[] root = _append(airdrop, _recipients, _amounts);
+        _pushRoot(airdrop, root);
+        airdrops.set(_id, airdrop);
+
+        LeavesAppended(_id, from, count, root);
+    }
+
+    @External
+    public void claim(int _id, int _index, BigInteger _amount, byte[][] _proof) {
+        _claim(_id, _index, Context.getCaller(), _amount, _proof);
+    }
+
+    @External
+    public void giveaway(int _id, int _index, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        _claim(_id, _index, _recipient, _amount, _proof);
+    }
+
+    @External
+    public void withdraw(Address _token, BigInteger _amount, @Optional Address _recipient) {
+        _onlyAdmin();
+        _recipient = _recipient == null ? admin() : _recipient;
+        _transfer(_token, _recipient, _amount);
+        Withdrawn(_token, _recipient, _amount);
+    }
+
+    @External(readonly = true)
+    public int lastId() {
+        return lastId.getOrDefault(-1);
+    }
+
+    @External(readonly = true)
+    public byte[] merkleRoot(int _id) {
+        Airdrop airdrop = airdrops.get(_id);
+        if(airdrop != null && airdrop.rootCount > 0) {
+            return rootHistory.at(_id).get((airdrop.rootCount - 1) % Airdrop.ROOT_HISTORY_SIZE);
+        }
+        return null;
+    }
+
+    @External(readonly = true)
+    public boolean isKnownRoot(int _id, byte[] _root) {
+        return knownRoots.at(_id).getOrDefault(_root, false);
+    }
+
+    @External(readonly = true)
+    public Map info(int _id) {
+        Airdrop airdrop = airdrops.get(_id);
+        if(airdrop != null) {
+            BigInteger claimed = totalClaimed.getOrDefault(_id, BigInteger.ZERO);
+            return Map.of(
+                    "id", _id,
+                    "token", airdrop.token,
+                    "depth", airdrop.depth,
+                    "start", airdrop.startTime,
+                    "end", airdrop.endTime,
+                    "total", airdrop.totalAmount != null ? airdrop.totalAmount : BigInteger.ZERO,
+                    "claimed", claimed,
+                    "remain", airdrop.totalAmount != null ? airdrop.totalAmount.subtract(claimed) : BigInteger.ZERO,
+                    "leaves", airdrop.nextIndex
+            );
+        }
+        return Map.of();
+    }
+
+    @External(readonly = true)
+    public boolean isClaimed(int _id, int _index) {
+        return _isClaimed(_id, _index);
+    }
+
+    @External(readonly = true)
+    public boolean isClaimable(int _id, int _index, Address _address, BigInteger _amount, byte[][] _proof) {
+        Airdrop airdrop = airdrops.get(_id);
+        if(airdrop != null) {
+            long time = Context.getBlockTimestamp();
+            if(airdrop.startTime <= time && (airdrop.endTime == 0 || airdrop.endTime > time))
+                return _verifyProof(airdrop, _index, _address, _amount, _proof);
+        }
+        return false;
+    }
+
+    @EventLog
+    public void Deposited(Address _sender,  BigInteger _amount) {}
+
+    @EventLog
+    public void AirdropAdded(int _id, Address _token, int _depth, long _startTime, long _endTime, String _totalAmount) {}
+
+    @EventLog
+    public void AirdropUpdated(int _id, long _startTime, long _endTime, String _totalAmount) {}
+
+    @EventLog
+    public void LeavesAppended(int _id, int _from, int _count, byte[] _root) {}
+
+    @EventLog
+    public void Claimed(int _id, Address _token, Address _recipient, BigInteger _amount) {}
+
+    @EventLog
+    public void Withdrawn(Address _token, Address _recipient, BigInteger _amount) {}
+}
@@ -0,0 +1,72 @@
+package io.havah.contract;
+
+import score.*;
+import score.annotation.External;
+import score.annotation.Payable;
+
+import java.math.BigInteger;
+
+/*
+ * Recipient of the integration tests of merkle airdrop, which claims its leaf again by claimByIndex() when it
+ * receives the tokens or the coins, and keeps the result of the claim.
+ */
+public class ReentrantRecipient {
+    protected static final VarDB<Address> airdrop = Context.newVarDB("airdrop", Address.class);
+    protected static final VarDB<Integer> id = Context.newVarDB("id", Integer.class);
+    protected static final VarDB<Integer> index = Context.newVarDB("index", Integer.class);
+    protected static final VarDB<BigInteger> amount = Context.newVarDB("amount", BigInteger.class);
+    protected static final ArrayDB<byte[]> proof = Context.newArrayDB("proof", byte[].class);
+    protected static final VarDB<String> result = Context.newVarDB("result", String.class);
+
+    public ReentrantRecipient(Address _airdrop) {
+        airdrop.set(_airdrop);
+    }
+
+    @External
+    public void setClaim(int _id, int _index, BigInteger _amount, byte[][] _proof) {
+        id.set(_id);
+        index.set(_index);
+        amount.set(_amount);
+        while (proof.size() > 0) {
+            proof.pop();
+        }
+        for (byte[] node : _proof) {
+            proof.add(node);
+        }
+        result.set(null);
+    }
+
+    // "claimed" if the claim succeeded, or the message of the revert
+    @External(readonly = true)
+    public String result() {
+        return result.getOrDefault("");
+    }
+
+    protected void _reenter() {
+        if (result.get() != null || amount.get() == null) {
+            return;
+        }
+        byte[][] nodes = new byte[proof.size()][];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = proof.get(i);
+        }
+        // the claim is tried once, the transfer of the claim doesn't try it again
+        result.set("pending");
+        try {
+            Context.call(airdrop.get(), "claimByIndex", id.get(), index.get(), amount.get(), nodes);
+            result.set("claimed");
+        } catch (UserRevertedException e) {
+            result.set(e.getMessage() != null ? e.getMessage() : "reverted");
+        }
+    }
+
+    @Payable
+    public void fallback() {
+        _reenter();
+    }
+
+    @External
+    public void tokenFallback(Address _from, BigInteger _value, byte[] _data) {
+        _reenter();
+    }
+}
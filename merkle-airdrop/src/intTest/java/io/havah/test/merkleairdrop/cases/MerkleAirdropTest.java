@@ -9,6 +9,7 @@ import foundation.icon.icx.data.Block;
 import foundation.icon.icx.data.Bytes;
 import foundation.icon.icx.data.TransactionResult;
 import foundation.icon.icx.transport.http.HttpProvider;
+import foundation.icon.icx.transport.jsonrpc.RpcError;
 import foundation.icon.icx.transport.jsonrpc.RpcItem;
 import foundation.icon.icx.transport.jsonrpc.RpcObject;
 import foundation.icon.icx.transport.jsonrpc.RpcValue;
@@ -18,14 +19,19 @@ import foundation.icon.test.TestBase;
 import foundation.icon.test.TransactionHandler;
 import io.havah.test.merkleairdrop.score.LogFinder;
 import io.havah.test.merkleairdrop.score.MerkleAirdropScore;
+import io.havah.test.merkleairdrop.score.ReentrantRecipientScore;
 import io.havah.test.merkleairdrop.score.SampleTokenScore;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static foundation.icon.test.Env.LOG;
 import static org.junit.jupiter.api.Assertions.*;
@@ -111,6 +117,96 @@ public class MerkleAirdropTest extends TestBase {
         return md.digest();
     }
 
+    protected byte[] _makeHashV2(Address address, BigInteger amount) throws NoSuchAlgorithmException {
+        byte[] leaf = new byte[53];
+        leaf[0] = (byte) (address.isContract() ? 1 : 0);
+        System.arraycopy(address.getBody(), 0, leaf, 1, 20);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        return md.digest(leaf);
+    }
+
+    protected byte[] _makeHashV3(int index, Address address, BigInteger amount) throws NoSuchAlgorithmException {
+        byte[] leaf = new byte[57];
+        leaf[0] = (byte) (index >>> 24);
+        leaf[1] = (byte) (index >>> 16);
+        leaf[2] = (byte) (index >>> 8);
+        leaf[3] = (byte) index;
+        leaf[4] = (byte) (address.isContract() ? 1 : 0);
+        System.arraycopy(address.getBody(), 0, leaf, 5, 20);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        return md.digest(leaf);
+    }
+
+    protected byte[] _hashPair(byte[] a, byte[] b) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        return Arrays.compareUnsigned(a, b) <= 0 ? md.digest(_concat(a, b)) : md.digest(_concat(b, a));
+    }
+
+    // builds the tree as merkletreejs with sortLeaves and sortPairs options, returns the levels from the leaves
+    protected List<List<byte[]>> _makeTree(List<byte[]> leaves) throws NoSuchAlgorithmException {
+        List<List<byte[]>> levels = new ArrayList<>();
+        List<byte[]> level = new ArrayList<>(leaves);
+        level.sort(Arrays::compareUnsigned);
+        levels.add(level);
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += 2) {
+                next.add(i + 1 < level.size() ? _hashPair(level.get(i), level.get(i + 1)) : level.get(i));
+            }
+            levels.add(next);
+            level = next;
+        }
+        return levels;
+    }
+
+    protected byte[][] _getProof(List<List<byte[]>> levels, byte[] leaf) {
+        List<byte[]> proof = new ArrayList<>();
+        int index = 0;
+        while (!Arrays.equals(levels.get(0).get(index), leaf)) index++;
+        for (int i = 0; i < levels.size() - 1; i++, index >>= 1) {
+            int sibling = index ^ 1;
+            if (sibling < levels.get(i).size())
+                proof.add(levels.get(i).get(sibling));
+        }
+        return proof.toArray(new byte[0][]);
+    }
+
+    /*
+     * Makes the multiproof of the leaves at the sorted positions, adds the proof to the list and returns the flags.
+     * The flag is 0 for the sibling from the proof, 1 for the sibling from the queue and 2 for the last odd node.
+     */
+    protected byte[] _getMultiProof(List<List<byte[]>> levels, List<Integer> positions, List<byte[]> proof) {
+        ByteArrayOutputStream flags = new ByteArrayOutputStream();
+        List<Integer> known = positions;
+        for (int i = 0; i < levels.size() - 1; i++) {
+            List<Integer> next = new ArrayList<>();
+            int k = 0;
+            while (k < known.size()) {
+                int index = known.get(k);
+                if ((index & 1) == 0 && index + 1 == levels.get(i).size()) {
+                    flags.write(2);
+                    k++;
+                } else if (k + 1 < known.size() && known.get(k + 1) == (index ^ 1)) {
+                    flags.write(1);
+                    k += 2;
+                } else {
+                    flags.write(0);
+                    proof.add(levels.get(i).get(index ^ 1));
+                    k++;
+                }
+                next.add(index >> 1);
+            }
+            known = next;
+        }
+        return flags.toByteArray();
+    }
+
     protected static BigInteger _getTimestamp() throws IOException {
         Block lastBlk = iconService.getLastBlock().execute();
         return lastBlk.getTimestamp();
@@ -370,4 +466,424 @@ public class MerkleAirdropTest extends TestBase {
 
         LOG.infoExiting();
     }
+
+    @Test
+    void leafV2Test() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "leafV2Test");
+
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i=0; i<owners.length; i++) {
+            leaves.add(_makeHashV2(owners[i].getAddress(), ICX.multiply(BigInteger.valueOf(10L * (i + 1)))));
+        }
+        List<List<byte[]>> tree = _makeTree(leaves);
+        byte[] rootV2 = tree.get(tree.size() - 1).get(0);
+
+        // use another contract not to change the ids of MerkleAirdropBasicTest
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(150L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+
+        TransactionResult result = score.addAirdrop(govWallet, hsp20token.getAddress(), rootV2, _getTimestamp(), null, amount, BigInteger.valueOf(4));
+        assertFailure(result);
+        result = score.addAirdrop(govWallet, hsp20token.getAddress(), rootV2, _getTimestamp(), null, amount, BigInteger.TWO);
+        assertSuccess(result);
+        BigInteger id = score.lastId();
+        assertEquals(BigInteger.TWO, score.info(id).get("leafVersion"));
+
+        BigInteger amount1 = ICX.multiply(BigInteger.valueOf(10));
+        byte[][] proof1 = _getProof(tree, leaves.get(0));
+        assertTrue(score.isClaimable(id, owners[0].getAddress(), amount1, proof1));
+        assertFalse(score.isClaimable(id, owners[1].getAddress(), amount1, proof1));
+        _claim(score, owners[0], id, hsp20token.getAddress(), amount1, proof1, true);
+        _claim(score, owners[0], id, hsp20token.getAddress(), amount1, proof1, false);
+
+        BigInteger amount5 = ICX.multiply(BigInteger.valueOf(50));
+        byte[][] proof5 = _getProof(tree, leaves.get(4));
+        _giveaway(score, govWallet, id, hsp20token.getAddress(), owners[3].getAddress(), amount5, proof5, false);
+        _giveaway(score, govWallet, id, hsp20token.getAddress(), owners[4].getAddress(), amount5, proof5, true);
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void indexedClaimTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "indexedClaimTest");
+
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i=0; i<owners.length; i++) {
+            leaves.add(_makeHashV3(i, owners[i].getAddress(), ICX.multiply(BigInteger.valueOf(10L * (i + 1)))));
+        }
+        List<List<byte[]>> tree = _makeTree(leaves);
+        byte[] rootV3 = tree.get(tree.size() - 1).get(0);
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(150L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), rootV3, _getTimestamp(), null, amount, BigInteger.valueOf(3)));
+        BigInteger id = score.lastId();
+
+        BigInteger amount1 = ICX.multiply(BigInteger.valueOf(10));
+        byte[][] proof1 = _getProof(tree, leaves.get(0));
+        assertFailure(score.claim(owners[0], id, amount1, proof1));
+        assertTrue(score.isClaimableByIndex(id, BigInteger.ZERO, owners[0].getAddress(), amount1, proof1));
+        assertFalse(score.isClaimableByIndex(id, BigInteger.ONE, owners[0].getAddress(), amount1, proof1));
+        assertFalse(score.isClaimedByIndex(id, BigInteger.ZERO));
+        // the queries by address are rejected for the indexed airdrop instead of answering for index 0
+        assertThrows(RpcError.class, () -> score.isClaimed(id, owners[0].getAddress()));
+        assertThrows(RpcError.class, () -> score.isClaimable(id, owners[0].getAddress(), amount1, proof1));
+        assertFailure(score.claimByIndex(owners[0], id, BigInteger.ONE, amount1, proof1));
+
+        BigInteger oldBalance = _getBalance(hsp20token.getAddress(), owners[0].getAddress());
+        TransactionResult result = score.claimByIndex(owners[0], id, BigInteger.ZERO, amount1, proof1);
+        assertSuccess(result);
+        LogFinder.ensureClaimed(result, score.getAddress(), id, hsp20token.getAddress(), owners[0].getAddress(), amount1);
+        assertEquals(oldBalance.add(amount1), _getBalance(hsp20token.getAddress(), owners[0].getAddress()));
+        assertTrue(score.isClaimedByIndex(id, BigInteger.ZERO));
+        assertFalse(score.isClaimedByIndex(id, BigInteger.ONE));
+        assertFailure(score.claimByIndex(owners[0], id, BigInteger.ZERO, amount1, proof1));
+
+        BigInteger amount4 = ICX.multiply(BigInteger.valueOf(40));
+        byte[][] proof4 = _getProof(tree, leaves.get(3));
+        result = score.giveawayByIndex(govWallet, id, BigInteger.valueOf(3), owners[3].getAddress(), amount4, proof4);
+        assertSuccess(result);
+        LogFinder.ensureClaimed(result, score.getAddress(), id, hsp20token.getAddress(), owners[3].getAddress(), amount4);
+        assertTrue(score.isClaimedByIndex(id, BigInteger.valueOf(3)));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void giveawayBatchTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "giveawayBatchTest");
+
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i=0; i<owners.length; i++) {
+            leaves.add(_makeHashV2(owners[i].getAddress(), ICX.multiply(BigInteger.valueOf(10L * (i + 1)))));
+        }
+        List<List<byte[]>> tree = _makeTree(leaves);
+        byte[] rootV2 = tree.get(tree.size() - 1).get(0);
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(150L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), rootV2, _getTimestamp(), null, amount, BigInteger.TWO));
+        BigInteger id = score.lastId();
+
+        // owners 0, 2 and 4 in the order of the tree
+        List<Integer> owner = new ArrayList<>(List.of(0, 2, 4));
+        owner.sort((a, b) -> Arrays.compareUnsigned(leaves.get(a), leaves.get(b)));
+        List<Integer> positions = new ArrayList<>();
+        Address[] recipients = new Address[owner.size()];
+        BigInteger[] amounts = new BigInteger[owner.size()];
+        BigInteger[] oldBalances = new BigInteger[owner.size()];
+        BigInteger total = BigInteger.ZERO;
+        for(int i=0; i<owner.size(); i++) {
+            int o = owner.get(i);
+            positions.add(tree.get(0).indexOf(leaves.get(o)));
+            recipients[i] = owners[o].getAddress();
+            amounts[i] = ICX.multiply(BigInteger.valueOf(10L * (o + 1)));
+            oldBalances[i] = _getBalance(hsp20token.getAddress(), recipients[i]);
+            total = total.add(amounts[i]);
+        }
+        List<byte[]> proof = new ArrayList<>();
+        byte[] flags = _getMultiProof(tree, positions, proof);
+        byte[][] multiproof = proof.toArray(new byte[0][]);
+
+        BigInteger[] wrongAmounts = amounts.clone();
+        wrongAmounts[0] = wrongAmounts[0].add(BigInteger.ONE);
+        assertFailure(score.giveawayBatch(govWallet, id, recipients, wrongAmounts, multiproof, flags, null));
+
+        TransactionResult result = score.giveawayBatch(govWallet, id, recipients, amounts, multiproof, flags, null);
+        assertSuccess(result);
+        LogFinder.ensureBatchClaimed(result, score.getAddress(), id, hsp20token.getAddress(), BigInteger.valueOf(recipients.length), total);
+        for(int i=0; i<recipients.length; i++) {
+            assertEquals(oldBalances[i].add(amounts[i]), _getBalance(hsp20token.getAddress(), recipients[i]));
+            assertTrue(score.isClaimed(id, recipients[i]));
+        }
+        assertFailure(score.giveawayBatch(govWallet, id, recipients, amounts, multiproof, flags, null));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void giveawayBatchReentrancyTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "giveawayBatchReentrancyTest");
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        ReentrantRecipientScore recipient = ReentrantRecipientScore.mustDeploy(txHandler, govWallet, score.getAddress());
+
+        // the recipient contract has the leaf of index 1, and claims it again when it receives the coins of the batch
+        Address[] addresses = new Address[] { owners[0].getAddress(), recipient.getAddress() };
+        BigInteger[] values = new BigInteger[] { ICX.multiply(BigInteger.valueOf(10)), ICX.multiply(BigInteger.valueOf(20)) };
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i=0; i<addresses.length; i++) {
+            leaves.add(_makeHashV3(i, addresses[i], values[i]));
+        }
+        List<List<byte[]>> tree = _makeTree(leaves);
+        byte[] rootV3 = tree.get(tree.size() - 1).get(0);
+
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(100));
+        assertSuccess(txHandler.getResult(txHandler.transfer(score.getAddress(), amount)));
+        assertSuccess(score.addAirdrop(govWallet, ZERO_ADDRESS, rootV3, _getTimestamp(), null, amount, BigInteger.valueOf(3)));
+        BigInteger id = score.lastId();
+        assertSuccess(recipient.setClaim(govWallet, id, BigInteger.ONE, values[1], _getProof(tree, leaves.get(1))));
+
+        List<Integer> order = new ArrayList<>(List.of(0, 1));
+        order.sort((a, b) -> Arrays.compareUnsigned(leaves.get(a), leaves.get(b)));
+        List<Integer> positions = new ArrayList<>();
+        Address[] recipients = new Address[order.size()];
+        BigInteger[] amounts = new BigInteger[order.size()];
+        BigInteger[] indexes = new BigInteger[order.size()];
+        for(int i=0; i<order.size(); i++) {
+            int o = order.get(i);
+            positions.add(tree.get(0).indexOf(leaves.get(o)));
+            recipients[i] = addresses[o];
+            amounts[i] = values[o];
+            indexes[i] = BigInteger.valueOf(o);
+        }
+        List<byte[]> proof = new ArrayList<>();
+        byte[] flags = _getMultiProof(tree, positions, proof);
+
+        BigInteger oldBalance = _getBalance(ZERO_ADDRESS, recipient.getAddress());
+        assertSuccess(score.giveawayBatch(govWallet, id, recipients, amounts, proof.toArray(new byte[0][]), flags, indexes));
+
+        // the claim of the recipient on the transfer is rejected, and it's paid once
+        assertNotEquals("claimed", recipient.result());
+        assertEquals(oldBalance.add(values[1]), _getBalance(ZERO_ADDRESS, recipient.getAddress()));
+        assertEquals(values[0].add(values[1]), score.info(id).get("claimed"));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void shardedAirdropTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "shardedAirdropTest");
+
+        // 2 shards by the first bit of the address body
+        List<List<byte[]>> shardLeaves = List.of(new ArrayList<>(), new ArrayList<>());
+        byte[][] leaves = new byte[owners.length][];
+        for(int i=0; i<owners.length; i++) {
+            Address address = owners[i].getAddress();
+            leaves[i] = _makeHashV2(address, ICX.multiply(BigInteger.valueOf(10L * (i + 1))));
+            shardLeaves.get((address.getBody()[0] & 0xff) >>> 7).add(leaves[i]);
+        }
+        List<List<List<byte[]>>> trees = new ArrayList<>();
+        byte[][] roots = new byte[2][];
+        for(int shard=0; shard<2; shard++) {
+            List<List<byte[]>> tree = shardLeaves.get(shard).isEmpty() ? null : _makeTree(shardLeaves.get(shard));
+            trees.add(tree);
+            roots[shard] = tree != null ? tree.get(tree.size() - 1).get(0) : new byte[32];
+        }
+        int shard0 = (owners[0].getAddress().getBody()[0] & 0xff) >>> 7;
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(150L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+        assertFailure(score.addShardedAirdrop(govWallet, hsp20token.getAddress(), new byte[][] { roots[0] }, _getTimestamp(), null, amount, BigInteger.TWO));
+
+        // the shard root of owners[0] is wrong at first, and replaced before the start
+        byte[][] wrongRoots = roots.clone();
+        wrongRoots[shard0] = new byte[32];
+        BigInteger startTime = _getTimestamp().add(BigInteger.valueOf(10 * 1_000_000L));
+        assertSuccess(score.addShardedAirdrop(govWallet, hsp20token.getAddress(), wrongRoots, startTime, null, amount, BigInteger.TWO));
+        BigInteger id = score.lastId();
+        assertEquals(BigInteger.TWO, score.info(id).get("shards"));
+        assertEquals(BigInteger.valueOf(shard0), score.shardOf(id, owners[0].getAddress()));
+
+        assertFailure(score.updateShardRoot(owners[0], id, BigInteger.valueOf(shard0), roots[shard0]));
+        assertFailure(score.updateShardRoot(govWallet, id, BigInteger.TWO, roots[shard0]));
+        TransactionResult result = score.updateShardRoot(govWallet, id, BigInteger.valueOf(shard0), roots[shard0]);
+        assertSuccess(result);
+        LogFinder.ensureShardRootUpdated(result, score.getAddress(), id, BigInteger.valueOf(shard0), roots[shard0]);
+        assertArrayEquals(roots[shard0], score.shardRoot(id, BigInteger.valueOf(shard0)));
+
+        _waitUtilTime(startTime);
+        assertFailure(score.updateShardRoot(govWallet, id, BigInteger.valueOf(shard0), roots[shard0]));
+
+        for(int i=0; i<owners.length; i++) {
+            Address address = owners[i].getAddress();
+            BigInteger amountI = ICX.multiply(BigInteger.valueOf(10L * (i + 1)));
+            byte[][] proof = _getProof(trees.get((address.getBody()[0] & 0xff) >>> 7), leaves[i]);
+            assertTrue(score.isClaimable(id, address, amountI, proof));
+            _claim(score, owners[i], id, hsp20token.getAddress(), amountI, proof, true);
+        }
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void claimManyTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "claimManyTest");
+
+        // owners[1] claims from a v1, a v2 and a v3 airdrop of the same token at once
+        Address address = owners[1].getAddress();
+        List<List<byte[]>> trees = new ArrayList<>();
+        byte[][][] proofs = new byte[3][][];
+        BigInteger[] amounts = new BigInteger[3];
+        BigInteger total = BigInteger.ZERO;
+        for(int v=0; v<3; v++) {
+            List<byte[]> leaves = new ArrayList<>();
+            for(int i=0; i<owners.length; i++) {
+                BigInteger amountI = ICX.multiply(BigInteger.valueOf(10L * (i + 1) + v));
+                leaves.add(v == 0 ? _makeHash(owners[i].getAddress(), amountI)
+                        : v == 1 ? _makeHashV2(owners[i].getAddress(), amountI) : _makeHashV3(i, owners[i].getAddress(), amountI));
+            }
+            List<List<byte[]>> tree = _makeTree(leaves);
+            trees.add(tree);
+            proofs[v] = _getProof(tree, leaves.get(1));
+            amounts[v] = ICX.multiply(BigInteger.valueOf(20L + v));
+            total = total.add(amounts[v]);
+        }
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(500L));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+        BigInteger[] ids = new BigInteger[3];
+        for(int v=0; v<3; v++) {
+            List<List<byte[]>> tree = trees.get(v);
+            assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), tree.get(tree.size() - 1).get(0), _getTimestamp(), null,
+                    amount, BigInteger.valueOf(v + 1)));
+            ids[v] = score.lastId();
+        }
+        BigInteger[] indexes = new BigInteger[] { BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE };
+
+        assertFailure(score.claimMany(owners[1], ids, amounts, proofs, null));
+        BigInteger[] wrongAmounts = amounts.clone();
+        wrongAmounts[2] = wrongAmounts[2].add(BigInteger.ONE);
+        assertFailure(score.claimMany(owners[1], ids, wrongAmounts, proofs, indexes));
+        assertFalse(score.isClaimed(ids[0], address));
+
+        BigInteger oldBalance = _getBalance(hsp20token.getAddress(), address);
+        TransactionResult result = score.claimMany(owners[1], ids, amounts, proofs, indexes);
+        assertSuccess(result);
+        assertEquals(oldBalance.add(total), _getBalance(hsp20token.getAddress(), address));
+        assertTrue(score.isClaimed(ids[0], address));
+        assertTrue(score.isClaimed(ids[1], address));
+        assertTrue(score.isClaimedByIndex(ids[2], BigInteger.ONE));
+        for(int v=0; v<3; v++) {
+            assertEquals(amounts[v], score.info(ids[v]).get("claimed"));
+        }
+        assertFailure(score.claimMany(owners[1], ids, amounts, proofs, indexes));
+
+        LOG.infoExiting();
+    }
+
+    // truncates the proof after the lowest node of the path which is verified already
+    protected byte[][] _truncateProof(MerkleAirdropScore score, BigInteger id, byte[] leaf, byte[][] proof) throws Exception {
+        byte[] node = leaf;
+        for(int i=0; i<proof.length - 1; i++) {
+            node = _hashPair(node, proof[i]);
+            if(score.isVerifiedNode(id, node))
+                return Arrays.copyOf(proof, i + 1);
+        }
+        return proof;
+    }
+
+    @Test
+    void nodeCacheTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "nodeCacheTest");
+
+        int count = 64;
+        int bucket = 16;
+        Address[] recipients = new Address[count];
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i=0; i<count; i++) {
+            recipients[i] = new Address(String.format("hx%040x", 0x1000 + i * 7919L));
+            leaves.add(_makeHashV2(recipients[i], BigInteger.valueOf(i + 1)));
+        }
+        List<List<byte[]>> tree = _makeTree(leaves);
+        byte[] root = tree.get(tree.size() - 1).get(0);
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), ICX));
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), root, _getTimestamp(), null, ICX, BigInteger.TWO));
+        BigInteger cachedId = score.lastId();
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), root, _getTimestamp(), null, ICX, BigInteger.TWO));
+        BigInteger id = score.lastId();
+        assertFailure(score.setNodeCache(govWallet, cachedId, BigInteger.valueOf(17)));
+        assertSuccess(score.setNodeCache(govWallet, cachedId, BigInteger.valueOf(4)));
+        assertEquals(BigInteger.valueOf(4), score.info(cachedId).get("nodeCacheDepth"));
+
+        // a truncated proof isn't accepted before its node is verified
+        byte[][] proof0 = _getProof(tree, leaves.get(0));
+        assertFalse(score.isClaimable(cachedId, recipients[0], BigInteger.ONE, Arrays.copyOf(proof0, 2)));
+
+        // steps of the claims of the airdrop without the cache and with the cache as it's warmed up
+        BigInteger steps = BigInteger.ZERO;
+        for(int i=0; i<bucket; i++) {
+            TransactionResult result = score.giveaway(govWallet, id, recipients[i], BigInteger.valueOf(i + 1), _getProof(tree, leaves.get(i)));
+            assertSuccess(result);
+            steps = steps.add(result.getStepUsed());
+        }
+        BigInteger uncached = steps.divide(BigInteger.valueOf(bucket));
+        LOG.info("steps per claim without cache : " + uncached);
+
+        BigInteger first = null, last = null;
+        steps = BigInteger.ZERO;
+        int nodes = 0;
+        for(int i=0; i<count; i++) {
+            byte[][] proof = _truncateProof(score, cachedId, leaves.get(i), _getProof(tree, leaves.get(i)));
+            nodes += proof.length;
+            TransactionResult result = score.giveaway(govWallet, cachedId, recipients[i], BigInteger.valueOf(i + 1), proof);
+            assertSuccess(result);
+            steps = steps.add(result.getStepUsed());
+            if((i + 1) % bucket == 0) {
+                BigInteger average = steps.divide(BigInteger.valueOf(bucket));
+                LOG.info("claims " + (i + 1 - bucket) + "-" + i + " : steps per claim " + average + ", proof nodes " + nodes);
+                if(first == null) first = average;
+                last = average;
+                steps = BigInteger.ZERO;
+                nodes = 0;
+            }
+        }
+        assertTrue(last.compareTo(first) < 0);
+        assertTrue(last.compareTo(uncached) < 0);
+
+        assertSuccess(score.setNodeCache(govWallet, cachedId, BigInteger.ZERO));
+        assertFalse(score.isClaimable(cachedId, recipients[0], BigInteger.ONE, Arrays.copyOf(proof0, 2)));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void claimStatusesTest() throws Exception {
+        LOG.infoEntering("MerkleAirdrop", "claimStatusesTest");
+
+        Address[] recipients = new Address[owners.length];
+        BigInteger[] amounts = new BigInteger[owners.length];
+        BigInteger[] indexes = new BigInteger[owners.length];
+        List<byte[]> leavesV2 = new ArrayList<>();
+        List<byte[]> leavesV3 = new ArrayList<>();
+        for(int i=0; i<owners.length; i++) {
+            recipients[i] = owners[i].getAddress();
+            amounts[i] = ICX.multiply(BigInteger.valueOf(i + 1));
+            indexes[i] = BigInteger.valueOf(i);
+            leavesV2.add(_makeHashV2(recipients[i], amounts[i]));
+            leavesV3.add(_makeHashV3(i, recipients[i], amounts[i]));
+        }
+        List<List<byte[]>> treeV2 = _makeTree(leavesV2);
+        List<List<byte[]>> treeV3 = _makeTree(leavesV3);
+
+        MerkleAirdropScore score = MerkleAirdropScore.mustDeploy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(30));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount));
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), treeV2.get(treeV2.size() - 1).get(0), _getTimestamp(), null, amount, BigInteger.TWO));
+        BigInteger id = score.lastId();
+        assertSuccess(score.addAirdrop(govWallet, hsp20token.getAddress(), treeV3.get(treeV3.size() - 1).get(0), _getTimestamp(), null, amount, BigInteger.valueOf(3)));
+        BigInteger indexedId = score.lastId();
+
+        for(int i : new int[] {1, 3, 4}) {
+            assertSuccess(score.giveaway(govWallet, id, recipients[i], amounts[i], _getProof(treeV2, leavesV2.get(i))));
+            assertSuccess(score.giveawayByIndex(govWallet, indexedId, indexes[i], recipients[i], amounts[i], _getProof(treeV3, leavesV3.get(i))));
+        }
+
+        // the status of the i-th entry is the bit (i % 8) of the byte (i / 8)
+        assertArrayEquals(new byte[] { 0x1a }, score.claimStatuses(id, recipients, null));
+        assertArrayEquals(new byte[] { 0x1a }, score.claimStatuses(indexedId, null, indexes));
+
+        List<BigInteger> words = score.claimedWords(indexedId, BigInteger.ZERO, BigInteger.TWO);
+        assertEquals(List.of(BigInteger.valueOf(0x1a), BigInteger.ZERO), words);
+
+        LOG.infoExiting();
+    }
 }
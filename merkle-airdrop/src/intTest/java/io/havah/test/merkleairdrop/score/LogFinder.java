@@ -72,6 +72,21 @@ public class LogFinder {
         throw new IOException("ensureAirdropUpdated failed.");
     }
 
+    public static void ensureShardRootUpdated(TransactionResult result, Address score, BigInteger stage, BigInteger shard,
+                                              byte[] merkleRoot) throws IOException {
+        TransactionResult.EventLog event = findEventLog(result, score, "ShardRootUpdated(int,int,bytes)");
+        if (event != null) {
+            BigInteger _stage = event.getData().get(0).asInteger();
+            BigInteger _shard = event.getData().get(1).asInteger();
+            byte[] _merkleRoot = event.getData().get(2).asByteArray();
+
+            if (stage.equals(_stage) && shard.equals(_shard) && Arrays.equals(merkleRoot, _merkleRoot)) {
+                return; // ensured
+            }
+        }
+        throw new IOException("ensureShardRootUpdated failed.");
+    }
+
     public static void ensureClaimed(TransactionResult result, Address score, BigInteger stage, Address token, Address recipient,
                                      BigInteger amount) throws IOException {
         TransactionResult.EventLog event = findEventLog(result, score, "Claimed(int,Address,Address,int)");
@@ -88,6 +103,22 @@ public class LogFinder {
         throw new IOException("ensureClaimed failed.");
     }
 
+    public static void ensureBatchClaimed(TransactionResult result, Address score, BigInteger stage, Address token, BigInteger count,
+                                          BigInteger amount) throws IOException {
+        TransactionResult.EventLog event = findEventLog(result, score, "BatchClaimed(int,Address,int,int)");
+        if (event != null) {
+            BigInteger _stage = event.getData().get(0).asInteger();
+            Address _token = event.getData().get(1).asAddress();
+            BigInteger _count = event.getData().get(2).asInteger();
+            BigInteger _amount = event.getData().get(3).asInteger();
+
+            if (stage.equals(_stage) && token.equals(_token) && count.equals(_count) && amount.equals(_amount)) {
+                return; // ensured
+            }
+        }
+        throw new IOException("ensureBatchClaimed failed.");
+    }
+
     public static void ensureWithdrawn(TransactionResult result, Address score, Address token,
                                        Address recipient, BigInteger amount) throws IOException {
         TransactionResult.EventLog event = findEventLog(result, score, "Withdrawn(Address,Address,int)");
@@ -13,6 +13,8 @@ import foundation.icon.test.score.Score;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static foundation.icon.test.Env.LOG;
@@ -37,16 +39,51 @@ public class MerkleAirdropScore extends Score {
 
     public TransactionResult addAirdrop(Wallet wallet, Address token, byte[] merkleRoot, BigInteger startTime, BigInteger endTime, BigInteger totalAmount)
             throws IOException, ResultTimeoutException {
+        return addAirdrop(wallet, token, merkleRoot, startTime, endTime, totalAmount, null);
+    }
+
+    public TransactionResult addAirdrop(Wallet wallet, Address token, byte[] merkleRoot, BigInteger startTime, BigInteger endTime, BigInteger totalAmount,
+                                        BigInteger leafVersion) throws IOException, ResultTimeoutException {
         RpcObject.Builder params = new RpcObject.Builder()
                 .put("_token", new RpcValue(token))
                 .put("_merkleRoot", new RpcValue(merkleRoot))
                 .put("_startTime", new RpcValue(startTime));
         if(endTime != null) params.put("_endTime", new RpcValue(endTime));
         if(totalAmount != null) params.put("_totalAmount", new RpcValue(totalAmount));
+        if(leafVersion != null) params.put("_leafVersion", new RpcValue(leafVersion));
 
         return invokeAndWaitResult(wallet, "addAirdrop", params.build());
     }
 
+    public TransactionResult addShardedAirdrop(Wallet wallet, Address token, byte[][] shardRoots, BigInteger startTime, BigInteger endTime,
+                                               BigInteger totalAmount, BigInteger leafVersion) throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] root : shardRoots) {
+            array.add(new RpcValue(root));
+        }
+
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_token", new RpcValue(token))
+                .put("_shardRoots", array.build())
+                .put("_startTime", new RpcValue(startTime));
+        if(endTime != null) params.put("_endTime", new RpcValue(endTime));
+        if(totalAmount != null) params.put("_totalAmount", new RpcValue(totalAmount));
+        if(leafVersion != null) params.put("_leafVersion", new RpcValue(leafVersion));
+
+        return invokeAndWaitResult(wallet, "addShardedAirdrop", params.build());
+    }
+
+    public TransactionResult updateShardRoot(Wallet wallet, BigInteger id, BigInteger shard, byte[] merkleRoot)
+            throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_shard", new RpcValue(shard))
+                .put("_merkleRoot", new RpcValue(merkleRoot))
+                .build();
+
+        return invokeAndWaitResult(wallet, "updateShardRoot", params);
+    }
+
     public TransactionResult updateAirdrop(Wallet wallet, BigInteger id, BigInteger startTime, BigInteger endTime, BigInteger totalAmount)
             throws IOException, ResultTimeoutException {
         RpcObject.Builder params = new RpcObject.Builder()
@@ -58,6 +95,16 @@ public class MerkleAirdropScore extends Score {
         return invokeAndWaitResult(wallet, "updateAirdrop", params.build());
     }
 
+    public TransactionResult setNodeCache(Wallet wallet, BigInteger id, BigInteger depth)
+            throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_depth", new RpcValue(depth))
+                .build();
+
+        return invokeAndWaitResult(wallet, "setNodeCache", params);
+    }
+
     public TransactionResult claim(Wallet wallet, BigInteger id, BigInteger amount, byte[][] proof)
             throws IOException, ResultTimeoutException {
         RpcArray.Builder array = new RpcArray.Builder();
@@ -91,6 +138,101 @@ public class MerkleAirdropScore extends Score {
         return invokeAndWaitResult(wallet, "giveaway", params);
     }
 
+    public TransactionResult claimByIndex(Wallet wallet, BigInteger id, BigInteger index, BigInteger amount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] leaf : proof) {
+            array.add(new RpcValue(leaf));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "claimByIndex", params);
+    }
+
+    public TransactionResult giveawayByIndex(Wallet wallet, BigInteger id, BigInteger index, Address recipient, BigInteger amount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] leaf : proof) {
+            array.add(new RpcValue(leaf));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_recipient", new RpcValue(recipient))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "giveawayByIndex", params);
+    }
+
+    public TransactionResult claimMany(Wallet wallet, BigInteger[] ids, BigInteger[] amounts, byte[][][] proofs, BigInteger[] indexes)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder idArray = new RpcArray.Builder();
+        RpcArray.Builder amountArray = new RpcArray.Builder();
+        RpcArray.Builder proofArray = new RpcArray.Builder();
+        for(int i=0; i<ids.length; i++) {
+            idArray.add(new RpcValue(ids[i]));
+            amountArray.add(new RpcValue(amounts[i]));
+            RpcArray.Builder proof = new RpcArray.Builder();
+            for(byte[] node : proofs[i]) {
+                proof.add(new RpcValue(node));
+            }
+            proofArray.add(proof.build());
+        }
+
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_ids", idArray.build())
+                .put("_amounts", amountArray.build())
+                .put("_proofs", proofArray.build());
+        if(indexes != null) {
+            RpcArray.Builder indexArray = new RpcArray.Builder();
+            for(BigInteger index : indexes) {
+                indexArray.add(new RpcValue(index));
+            }
+            params.put("_indexes", indexArray.build());
+        }
+
+        return invokeAndWaitResult(wallet, "claimMany", params.build());
+    }
+
+    public TransactionResult giveawayBatch(Wallet wallet, BigInteger id, Address[] recipients, BigInteger[] amounts, byte[][] proof,
+                                           byte[] flags, BigInteger[] indexes) throws IOException, ResultTimeoutException {
+        RpcArray.Builder recipientArray = new RpcArray.Builder();
+        RpcArray.Builder amountArray = new RpcArray.Builder();
+        for(int i=0; i<recipients.length; i++) {
+            recipientArray.add(new RpcValue(recipients[i]));
+            amountArray.add(new RpcValue(amounts[i]));
+        }
+        RpcArray.Builder proofArray = new RpcArray.Builder();
+        for(byte[] node : proof) {
+            proofArray.add(new RpcValue(node));
+        }
+
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_recipients", recipientArray.build())
+                .put("_amounts", amountArray.build())
+                .put("_proof", proofArray.build())
+                .put("_flags", new RpcValue(flags));
+        if(indexes != null) {
+            RpcArray.Builder indexArray = new RpcArray.Builder();
+            for(BigInteger index : indexes) {
+                indexArray.add(new RpcValue(index));
+            }
+            params.put("_indexes", indexArray.build());
+        }
+
+        return invokeAndWaitResult(wallet, "giveawayBatch", params.build());
+    }
+
     public TransactionResult withdraw(Wallet wallet, Address token, BigInteger amount, Address recipient)
             throws IOException, ResultTimeoutException {
         RpcObject.Builder params = new RpcObject.Builder()
@@ -112,6 +254,22 @@ public class MerkleAirdropScore extends Score {
         return call("merkleRoot", params).asByteArray();
     }
 
+    public byte[] shardRoot(BigInteger id, BigInteger shard) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_shard", new RpcValue(shard))
+                .build();
+        return call("shardRoot", params).asByteArray();
+    }
+
+    public BigInteger shardOf(BigInteger id, Address address) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_address", new RpcValue(address))
+                .build();
+        return call("shardOf", params).asInteger();
+    }
+
     public Map info(BigInteger id) throws IOException {
         RpcObject params = new RpcObject.Builder()
                 .put("_id", new RpcValue(id))
@@ -124,7 +282,10 @@ public class MerkleAirdropScore extends Score {
                 "end", obj.getItem("end").asInteger(),
                 "total", obj.getItem("total").asInteger(),
                 "claimed", obj.getItem("claimed").asInteger(),
-                "remain", obj.getItem("remain").asInteger()
+                "remain", obj.getItem("remain").asInteger(),
+                "leafVersion", obj.getItem("leafVersion").asInteger(),
+                "shards", obj.getItem("shards").asInteger(),
+                "nodeCacheDepth", obj.getItem("nodeCacheDepth").asInteger()
         );
     }
 
@@ -136,6 +297,48 @@ public class MerkleAirdropScore extends Score {
         return call("isClaimed", params).asBoolean();
     }
 
+    public boolean isClaimedByIndex(BigInteger id, BigInteger index) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .build();
+        return call("isClaimedByIndex", params).asBoolean();
+    }
+
+    public byte[] claimStatuses(BigInteger id, Address[] addresses, BigInteger[] indexes) throws IOException {
+        RpcObject.Builder params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id));
+        if(addresses != null) {
+            RpcArray.Builder addressArray = new RpcArray.Builder();
+            for(Address address : addresses) {
+                addressArray.add(new RpcValue(address));
+            }
+            params.put("_addresses", addressArray.build());
+        }
+        if(indexes != null) {
+            RpcArray.Builder indexArray = new RpcArray.Builder();
+            for(BigInteger index : indexes) {
+                indexArray.add(new RpcValue(index));
+            }
+            params.put("_indexes", indexArray.build());
+        }
+        return call("claimStatuses", params.build()).asByteArray();
+    }
+
+    public List<BigInteger> claimedWords(BigInteger id, BigInteger fromWord, BigInteger count) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_fromWord", new RpcValue(fromWord))
+                .put("_count", new RpcValue(count))
+                .build();
+        RpcArray array = call("claimedWords", params).asArray();
+        List<BigInteger> words = new ArrayList<>();
+        for(int i=0; i<array.size(); i++) {
+            words.add(array.get(i).asInteger());
+        }
+        return words;
+    }
+
     public boolean isClaimable(BigInteger id, Address address, BigInteger amount, byte[][] proof) throws IOException {
         RpcArray.Builder array = new RpcArray.Builder();
         for(byte[] leaf : proof) {
@@ -151,6 +354,30 @@ public class MerkleAirdropScore extends Score {
         return call("isClaimable", params).asBoolean();
     }
 
+    public boolean isClaimableByIndex(BigInteger id, BigInteger index, Address address, BigInteger amount, byte[][] proof) throws IOException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] leaf : proof) {
+            array.add(new RpcValue(leaf));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_address", new RpcValue(address))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+        return call("isClaimableByIndex", params).asBoolean();
+    }
+
+    public boolean isVerifiedNode(BigInteger id, byte[] node) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_node", new RpcValue(node))
+                .build();
+        return call("isVerifiedNode", params).asBoolean();
+    }
+
     public boolean isValidProof(byte[] merkleRoot, byte[] hash, byte[][] _proof)
             throws IOException {
         RpcArray.Builder array = new RpcArray.Builder();
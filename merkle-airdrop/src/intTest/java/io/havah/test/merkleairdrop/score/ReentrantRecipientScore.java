@@ -0,0 +1,57 @@
+package io.havah.test.merkleairdrop.score;
+
+import foundation.icon.icx.Wallet;
+import foundation.icon.icx.data.Address;
+import foundation.icon.icx.data.TransactionResult;
+import foundation.icon.icx.transport.jsonrpc.RpcArray;
+import foundation.icon.icx.transport.jsonrpc.RpcObject;
+import foundation.icon.icx.transport.jsonrpc.RpcValue;
+import foundation.icon.test.ResultTimeoutException;
+import foundation.icon.test.TransactionFailureException;
+import foundation.icon.test.TransactionHandler;
+import foundation.icon.test.score.Score;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import static foundation.icon.test.Env.LOG;
+
+public class ReentrantRecipientScore extends Score {
+    public ReentrantRecipientScore(Score other) {
+        super(other);
+    }
+
+    public static ReentrantRecipientScore mustDeploy(TransactionHandler txHandler, Wallet wallet, Address airdrop)
+            throws ResultTimeoutException, TransactionFailureException, IOException {
+        LOG.infoEntering("deploy", "ReentrantRecipient");
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_airdrop", new RpcValue(airdrop))
+                .build();
+
+        Score score = txHandler.deploy(wallet, getFilePath("reentrant-recipient"), params);
+        LOG.infoExiting("scoreAddr = " + score.getAddress());
+        return new ReentrantRecipientScore(score);
+    }
+
+    public TransactionResult setClaim(Wallet wallet, BigInteger id, BigInteger index, BigInteger amount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder array = new RpcArray.Builder();
+        for(byte[] node : proof) {
+            array.add(new RpcValue(node));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_index", new RpcValue(index))
+                .put("_amount", new RpcValue(amount))
+                .put("_proof", array.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "setClaim", params);
+    }
+
+    public String result() throws IOException {
+        return call("result", null).asString();
+    }
+}
@@ -8,12 +8,28 @@ import score.annotation.Optional;
 import java.math.BigInteger;
 
 public class Airdrop {
+    // leaf = keccak256(address.toString() + amount.toString())
+    public static final int LEAF_V1 = 1;
+    // leaf = keccak256(21 bytes address + 32 bytes big-endian amount)
+    public static final int LEAF_V2 = 2;
+    // leaf = keccak256(4 bytes big-endian index + 21 bytes address + 32 bytes big-endian amount)
+    public static final int LEAF_V3 = 3;
+    // shards are chosen by the leading bits of the address body, so 2^16 shards at most
+    public static final int MAX_SHARD_BITS = 16;
+    // the verified nodes are cached up to 2^MAX_CACHE_DEPTH nodes of the level
+    public static final int MAX_CACHE_DEPTH = 16;
+
     int id;
     Address token;
     byte[] merkleRoot;
     long startTime;
     long endTime;
     BigInteger totalAmount;
+    int leafVersion;
+    // 0 for the single merkleRoot, otherwise the roots of 2^shardBits shards are kept apart
+    int shardBits;
+    // 0 for no cache, otherwise the verified nodes up to cacheDepth levels below the root are cached
+    int cacheDepth;
 
     private Airdrop() {}
 
@@ -24,16 +40,40 @@ public class Airdrop {
         this.startTime = startTime;
         this.endTime = endTime;
         this.totalAmount = totalAmount;
+        this.leafVersion = LEAF_V1;
+    }
+
+    public Airdrop(int id, Address token, byte[] merkleRoot, long startTime, long endTime, BigInteger totalAmount, int leafVersion) {
+        this(id, token, merkleRoot, startTime, endTime, totalAmount);
+        this.leafVersion = leafVersion;
+    }
+
+    // claimed status of the indexed leaves is kept in bitmap instead of address
+    boolean isIndexed() {
+        return leafVersion == LEAF_V3;
+    }
+
+    boolean isSharded() {
+        return shardBits > 0;
     }
 
     public static void writeObject(ObjectWriter w, Airdrop s) {
-        w.beginList(6);
+        // the optional fields are written up to the last one which is not default,
+        // so v1 airdrops keep the old encoding
+        int fields = s.cacheDepth > 0 ? 9 : s.shardBits > 0 ? 8 : s.leafVersion != LEAF_V1 ? 7 : 6;
+        w.beginList(fields);
         w.write(s.id);
         w.write(s.token);
         w.write(s.merkleRoot);
         w.write(s.startTime);
         w.write(s.endTime);
         w.writeNullable(s.totalAmount);
+        if (fields > 6)
+            w.write(s.leafVersion);
+        if (fields > 7)
+            w.write(s.shardBits);
+        if (fields > 8)
+            w.write(s.cacheDepth);
         w.end();
     }
 
@@ -46,6 +86,12 @@ public class Airdrop {
                 r.readLong(),
                 r.readLong(),
                 r.readNullable(BigInteger.class));
+        if (r.hasNext())
+            s.leafVersion = r.readInt();
+        if (r.hasNext())
+            s.shardBits = r.readInt();
+        if (r.hasNext())
+            s.cacheDepth = r.readInt();
         r.end();
         return s;
     }
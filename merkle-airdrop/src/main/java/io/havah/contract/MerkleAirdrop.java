@@ -5,8 +5,10 @@ import score.annotation.EventLog;
 import score.annotation.External;
 import score.annotation.Optional;
 import score.annotation.Payable;
+import scorex.util.ArrayList;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 
 public class MerkleAirdrop {
@@ -16,8 +18,21 @@ public class MerkleAirdrop {
     protected static final DictDB<Integer, Airdrop> airdrops = Context.newDictDB("airdrops", Airdrop.class);
     protected static final VarDB<Integer> lastId = Context.newVarDB("last_id", Integer.class);
     protected static final BranchDB<Integer, DictDB<Address, Boolean>> claimed = Context.newBranchDB("claimed", Boolean.class);
+    // 256 claimed flags of the indexed leaves in a word
+    protected static final BranchDB<Integer, DictDB<Integer, BigInteger>> claimedBitmap = Context.newBranchDB("claimed_bitmap", BigInteger.class);
+    // roots of the shards of the sharded airdrop
+    protected static final BranchDB<Integer, DictDB<Integer, byte[]>> shardRoots = Context.newBranchDB("shard_roots", byte[].class);
+    // distances from the root of the verified internal nodes, which the proofs of later claims can end at
+    protected static final BranchDB<Integer, DictDB<byte[], Integer>> verifiedNodes = Context.newBranchDB("verified_nodes", Integer.class);
     protected static final DictDB<Integer, BigInteger> totalClaimed = Context.newDictDB("total_claimed", BigInteger.class);
 
+    // flags of multiproof, how to get the sibling of the next node in the queue
+    protected static final byte SIBLING_FROM_PROOF = 0;
+    protected static final byte SIBLING_FROM_QUEUE = 1;
+    protected static final byte NO_SIBLING = 2;
+    // the max number of the statuses or the bitmap words in a query
+    protected static final int MAX_QUERY_COUNT = 1024;
+
     protected boolean _isCaller(Address address) {
         return Context.getCaller().equals(address);
     }
@@ -64,6 +79,18 @@ public class MerkleAirdrop {
         _require(amount == null || amount.signum() > 0, "Invalid amount");
     }
 
+    protected void _checkLeafVersion(int leafVersion) {
+        _require(leafVersion >= Airdrop.LEAF_V1 && leafVersion <= Airdrop.LEAF_V3, "Invalid leaf version");
+    }
+
+    protected void _checkShardRoots(byte[][] roots) {
+        int count = roots == null ? 0 : roots.length;
+        _require(count > 1 && count <= 1 << Airdrop.MAX_SHARD_BITS && (count & (count - 1)) == 0, "Invalid shard count");
+        for(byte[] root : roots) {
+            _checkNotEmpty(root);
+        }
+    }
+
     protected void _checkExistId(int id) {
         _require(id > -1 && id <= lastId.get(), "Invalid id");
     }
@@ -79,23 +106,171 @@ public class MerkleAirdrop {
             _require( time < airdrop.endTime, "Not open airdrop");
     }
 
+    protected boolean _isOpen(Airdrop airdrop) {
+        long time = Context.getBlockTimestamp();
+        return airdrop.startTime <= time && (airdrop.endTime == 0 || airdrop.endTime > time);
+    }
+
     protected void _checkNotClaimed(int id, Address caller) {
         _require(!claimed.at(id).getOrDefault(caller, false), "Already claimed");
     }
 
-    protected boolean _verifyProof(byte[] merkleRoot, Address caller, BigInteger amount, byte[][] proof) {
-        byte[] hash = _makeHash(caller.toString().getBytes(), amount.toString().getBytes());
-        for(byte[] leaf : proof) {
-            if(_compare(hash, leaf) <= 0) {
-                hash = _makeHash(hash, leaf);
-            } else {
-                hash = _makeHash(leaf, hash);
+    protected void _checkNotClaimed(int id, int index) {
+        _require(!_isClaimed(id, index), "Already claimed");
+    }
+
+    protected boolean _isClaimed(int id, int index) {
+        BigInteger word = claimedBitmap.at(id).get(index >> 8);
+        return word != null && word.testBit(index & 0xff);
+    }
+
+    protected void _setClaimed(int id, int index) {
+        DictDB<Integer, BigInteger> bitmap = claimedBitmap.at(id);
+        int wordIndex = index >> 8;
+        bitmap.set(wordIndex, bitmap.getOrDefault(wordIndex, BigInteger.ZERO).setBit(index & 0xff));
+    }
+
+    // the shard of the address is the leading shardBits bits of its 20 bytes body
+    protected int _shardOf(Airdrop airdrop, Address address) {
+        byte[] addr = address.toByteArray();
+        int prefix = (addr[1] & 0xff) << 8 | (addr[2] & 0xff);
+        return prefix >>> (Airdrop.MAX_SHARD_BITS - airdrop.shardBits);
+    }
+
+    protected byte[] _merkleRoot(Airdrop airdrop, Address address) {
+        if (!airdrop.isSharded())
+            return airdrop.merkleRoot;
+        return shardRoots.at(airdrop.id).get(_shardOf(airdrop, address));
+    }
+
+    protected byte[] _leafHash(int leafVersion, Address address, BigInteger amount) {
+        if (leafVersion == Airdrop.LEAF_V2) {
+            byte[] leaf = new byte[Address.LENGTH + 32];
+            return _putLeaf(leaf, 0, address, amount) ? Context.hash("keccak-256", leaf) : null;
+        }
+        return _makeHash(address.toString().getBytes(), amount.toString().getBytes());
+    }
+
+    protected byte[] _indexedLeafHash(int index, Address address, BigInteger amount) {
+        byte[] leaf = new byte[4 + Address.LENGTH + 32];
+        leaf[0] = (byte) (index >>> 24);
+        leaf[1] = (byte) (index >>> 16);
+        leaf[2] = (byte) (index >>> 8);
+        leaf[3] = (byte) index;
+        return _putLeaf(leaf, 4, address, amount) ? Context.hash("keccak-256", leaf) : null;
+    }
+
+    // writes the address and the 32 bytes big-endian amount from the offset
+    protected boolean _putLeaf(byte[] leaf, int offset, Address address, BigInteger amount) {
+        if (amount.signum() < 0 || amount.bitLength() > 256)
+            return false;
+        byte[] addr = address.toByteArray();
+        System.arraycopy(addr, 0, leaf, offset, addr.length);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        return true;
+    }
+
+    protected boolean _verifyProof(Airdrop airdrop, Address caller, BigInteger amount, byte[][] proof, boolean cacheNodes) {
+        byte[] hash = _leafHash(airdrop.leafVersion, caller, amount);
+        return hash != null && _verifyProof(airdrop, _merkleRoot(airdrop, caller), hash, proof, cacheNodes);
+    }
+
+    protected boolean _verifyProof(Airdrop airdrop, int index, Address caller, BigInteger amount, byte[][] proof, boolean cacheNodes) {
+        byte[] hash = _indexedLeafHash(index, caller, amount);
+        return hash != null && _verifyProof(airdrop, _merkleRoot(airdrop, caller), hash, proof, cacheNodes);
+    }
+
+    /*
+     * Verifies the proof which ends at the root, or at a verified node if the airdrop has the cache.
+     * If cacheNodes is true, the nodes of the path up to cacheDepth levels below the root are cached with their
+     * distances. They are cached from the lowest one and the nodes above a cached node are cached already,
+     * so it stops at the first cached node.
+     */
+    protected boolean _verifyProof(Airdrop airdrop, byte[] merkleRoot, byte[] hash, byte[][] proof, boolean cacheNodes) {
+        if(airdrop.cacheDepth == 0)
+            return _verifyProof(merkleRoot, hash, proof);
+
+        byte[][] path = new byte[proof.length][];
+        byte[] buf = new byte[64];
+        for(int i=0; i<proof.length; i++) {
+            hash = _hashPair(buf, hash, proof[i]);
+            path[i] = hash;
+        }
+        DictDB<byte[], Integer> cache = verifiedNodes.at(airdrop.id);
+        int distance = 0;
+        if(_compare(hash, merkleRoot) != 0) {
+            distance = proof.length > 0 ? cache.getOrDefault(hash, 0) : 0;
+            if(distance == 0)
+                return false;
+        }
+
+        if(cacheNodes) {
+            for(int i=Math.max(0, proof.length - 1 - (airdrop.cacheDepth - distance)); i<proof.length - 1; i++) {
+                if(cache.getOrDefault(path[i], 0) > 0)
+                    break;
+                cache.set(path[i], distance + proof.length - 1 - i);
             }
         }
+        return true;
+    }
+
+    protected boolean _verifyProof(byte[] merkleRoot, byte[] hash, byte[][] proof) {
+        // pairs of 32 bytes hashes are hashed through the same buffer
+        byte[] buf = new byte[64];
+        for(byte[] node : proof) {
+            hash = _hashPair(buf, hash, node);
+        }
 
         return _compare(hash, merkleRoot) == 0;
     }
 
+    /*
+     * Verifies the leaves with the multiproof. The leaves should be in the order of the tree, and each flag takes
+     * the next node in the queue and pushes its parent. The parent is hashed with the next proof or the next node
+     * in the queue, or is the node itself if it's the last odd node of the level.
+     */
+    protected boolean _verifyMultiProof(byte[] merkleRoot, byte[][] leaves, byte[][] proof, byte[] flags) {
+        byte[][] queue = new byte[leaves.length + flags.length][];
+        System.arraycopy(leaves, 0, queue, 0, leaves.length);
+        int head = 0, tail = leaves.length, proofPos = 0;
+        byte[] buf = new byte[64];
+        for(byte flag : flags) {
+            if(head == tail)
+                return false;
+            byte[] node = queue[head++];
+            if(flag == SIBLING_FROM_PROOF) {
+                if(proofPos == proof.length)
+                    return false;
+                node = _hashPair(buf, node, proof[proofPos++]);
+            } else if(flag == SIBLING_FROM_QUEUE) {
+                if(head == tail)
+                    return false;
+                node = _hashPair(buf, node, queue[head++]);
+            } else if(flag != NO_SIBLING) {
+                return false;
+            }
+            queue[tail++] = node;
+        }
+
+        return proofPos == proof.length && tail - head == 1 && _compare(queue[head], merkleRoot) == 0;
+    }
+
+    protected byte[] _hashPair(byte[] buf, byte[] a, byte[] b) {
+        if(_compare(a, b) > 0) {
+            byte[] t = a;
+            a = b;
+            b = t;
+        }
+        if(a.length + b.length != buf.length)
+            return _makeHash(a, b);
+
+        System.arraycopy(a, 0, buf, 0, a.length);
+        System.arraycopy(b, 0, buf, a.length, b.length);
+        return Context.hash("keccak-256", buf);
+    }
+
     protected String _getSafeString(Object obj) {
         return obj == null ? "" : obj.toString();
     }
@@ -136,17 +311,52 @@ public class MerkleAirdrop {
         }
     }
 
-    protected void _claim(int _id, Address _recipient, BigInteger _amount, byte[][] _proof) {
+    protected Airdrop _getAirdrop(int _id) {
         _checkExistId(_id);
-        _checkNotClaimed(_id, _recipient);
-        Airdrop airdrop = airdrops.get(_id);
+        return airdrops.get(_id);
+    }
+
+    protected void _claim(int _id, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        Airdrop airdrop = _getAirdrop(_id);
+        _recordClaim(airdrop, _recipient, _amount, _proof);
+        _payout(airdrop, _recipient, _amount);
+    }
+
+    protected void _claimByIndex(int _id, int _index, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        Airdrop airdrop = _getAirdrop(_id);
+        _recordClaimByIndex(airdrop, _index, _recipient, _amount, _proof);
+        _payout(airdrop, _recipient, _amount);
+    }
+
+    // verifies and records the claim without the transfer
+    protected void _recordClaim(Airdrop airdrop, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        _checkNotClaimed(airdrop.id, _recipient);
+        _require(!airdrop.isIndexed(), "Index required");
         _checkOpenAirdrop(airdrop);
-        _require(_verifyProof(airdrop.merkleRoot, _recipient, _amount, _proof), "Invalid proof");
+        _require(_verifyProof(airdrop, _recipient, _amount, _proof, true), "Invalid proof");
+
+        claimed.at(airdrop.id).set(_recipient, true);
+        _addClaimed(airdrop.id, _amount);
+    }
 
-        claimed.at(_id).set(_recipient, true);
+    protected void _recordClaimByIndex(Airdrop airdrop, int _index, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        _require(airdrop.isIndexed(), "Not indexed airdrop");
+        _require(_index >= 0, "Invalid index");
+        _checkNotClaimed(airdrop.id, _index);
+        _checkOpenAirdrop(airdrop);
+        _require(_verifyProof(airdrop, _index, _recipient, _amount, _proof, true), "Invalid proof");
+
+        _setClaimed(airdrop.id, _index);
+        _addClaimed(airdrop.id, _amount);
+    }
+
+    protected void _addClaimed(int _id, BigInteger _amount) {
         totalClaimed.set(_id, totalClaimed.getOrDefault(_id, BigInteger.ZERO).add(_amount));
+    }
+
+    protected void _payout(Airdrop airdrop, Address _recipient, BigInteger _amount) {
         _transfer(airdrop.token, _recipient, _amount);
-        Claimed(_id, airdrop.token, _recipient, _amount);
+        Claimed(airdrop.id, airdrop.token, _recipient, _amount);
     }
 
     public MerkleAirdrop(String _name) {
@@ -162,20 +372,63 @@ public class MerkleAirdrop {
     }
 
     @External
-    public void addAirdrop(Address _token, byte[] _merkleRoot, long _startTime, @Optional long _endTime, @Optional BigInteger _totalAmount) {
+    public void addAirdrop(Address _token, byte[] _merkleRoot, long _startTime, @Optional long _endTime, @Optional BigInteger _totalAmount,
+                           @Optional int _leafVersion) {
         _onlyAdmin();
         _checkContract(_token);
         _checkNotEmpty(_merkleRoot);
         _checkTime(_startTime, _endTime);
         _checkAmount(_totalAmount);
+        int leafVersion = _leafVersion == 0 ? Airdrop.LEAF_V1 : _leafVersion;
+        _checkLeafVersion(leafVersion);
 
         int id = lastId() + 1;
-        airdrops.set(id, new Airdrop(id, _token, _merkleRoot, _startTime, _endTime, _totalAmount));
+        airdrops.set(id, new Airdrop(id, _token, _merkleRoot, _startTime, _endTime, _totalAmount, leafVersion));
         lastId.set(id);
 
         AirdropAdded(id, _token, _merkleRoot, _startTime, _endTime, _getSafeString(_totalAmount));
     }
 
+    @External
+    public void addShardedAirdrop(Address _token, byte[][] _shardRoots, long _startTime, @Optional long _endTime,
+                                  @Optional BigInteger _totalAmount, @Optional int _leafVersion) {
+        _onlyAdmin();
+        _checkContract(_token);
+        _checkShardRoots(_shardRoots);
+        _checkTime(_startTime, _endTime);
+        _checkAmount(_totalAmount);
+        int leafVersion = _leafVersion == 0 ? Airdrop.LEAF_V1 : _leafVersion;
+        _checkLeafVersion(leafVersion);
+
+        int id = lastId() + 1;
+        Airdrop airdrop = new Airdrop(id, _token, new byte[0], _startTime, _endTime, _totalAmount, leafVersion);
+        airdrop.shardBits = Integer.numberOfTrailingZeros(_shardRoots.length);
+        airdrops.set(id, airdrop);
+        lastId.set(id);
+
+        DictDB<Integer, byte[]> roots = shardRoots.at(id);
+        for(int i=0; i<_shardRoots.length; i++) {
+            roots.set(i, _shardRoots[i]);
+        }
+
+        AirdropAdded(id, _token, airdrop.merkleRoot, _startTime, _endTime, _getSafeString(_totalAmount));
+    }
+
+    @External
+    public void updateShardRoot(int _id, int _shard, byte[] _merkleRoot) {
+        _onlyAdmin();
+        _checkExistId(_id);
+        _checkNotEmpty(_merkleRoot);
+
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop.isSharded(), "Not sharded airdrop");
+        _require(_shard >= 0 && _shard < 1 << airdrop.shardBits, "Invalid shard");
+        _checkNotStarted(airdrop);
+
+        shardRoots.at(_id).set(_shard, _merkleRoot);
+        ShardRootUpdated(_id, _shard, _merkleRoot);
+    }
+
     @External
     public void updateAirdrop(int _id, long _startTime, @Optional long _endTime, @Optional BigInteger _totalAmount) {
         _onlyAdmin();
@@ -194,6 +447,18 @@ public class MerkleAirdrop {
         AirdropUpdated(_id, _startTime, _endTime, _getSafeString(_totalAmount));
     }
 
+    @External
+    public void setNodeCache(int _id, int _depth) {
+        _onlyAdmin();
+        _checkExistId(_id);
+        _require(_depth >= 0 && _depth <= Airdrop.MAX_CACHE_DEPTH, "Invalid depth");
+
+        Airdrop airdrop = airdrops.get(_id);
+        airdrop.cacheDepth = _depth;
+        airdrops.set(_id, airdrop);
+        NodeCacheSet(_id, _depth);
+    }
+
     @External
     public void claim(int _id, BigInteger _amount, byte[][] _proof) {
         _claim(_id, Context.getCaller(), _amount, _proof);
@@ -204,6 +469,109 @@ public class MerkleAirdrop {
         _claim(_id, _recipient, _amount, _proof);
     }
 
+    @External
+    public void claimByIndex(int _id, int _index, BigInteger _amount, byte[][] _proof) {
+        _claimByIndex(_id, _index, Context.getCaller(), _amount, _proof);
+    }
+
+    @External
+    public void giveawayByIndex(int _id, int _index, Address _recipient, BigInteger _amount, byte[][] _proof) {
+        _claimByIndex(_id, _index, _recipient, _amount, _proof);
+    }
+
+    @External
+    public void claimMany(int[] _ids, BigInteger[] _amounts, byte[][][] _proofs, @Optional int[] _indexes) {
+        Address caller = Context.getCaller();
+        int count = _ids.length;
+        _require(count > 0 && _amounts.length == count && _proofs.length == count, "Invalid length");
+        _require(_indexes == null || _indexes.length == count, "Invalid length");
+
+        // all claims are recorded first, and the amounts are summed up to transfer once per token
+        Address[] tokens = new Address[count];
+        BigInteger[] sums = new BigInteger[count];
+        int tokenCount = 0;
+        for(int i=0; i<count; i++) {
+            Airdrop airdrop = _getAirdrop(_ids[i]);
+            if(airdrop.isIndexed()) {
+                _require(_indexes != null, "Index required");
+                _recordClaimByIndex(airdrop, _indexes[i], caller, _amounts[i], _proofs[i]);
+            } else {
+                _recordClaim(airdrop, caller, _amounts[i], _proofs[i]);
+            }
+            Claimed(airdrop.id, airdrop.token, caller, _amounts[i]);
+
+            int t = 0;
+            while(t < tokenCount && !tokens[t].equals(airdrop.token)) t++;
+            if(t == tokenCount) {
+                tokens[tokenCount++] = airdrop.token;
+                sums[t] = BigInteger.ZERO;
+            }
+            sums[t] = sums[t].add(_amounts[i]);
+        }
+        for(int t=0; t<tokenCount; t++) {
+            _transfer(tokens[t], caller, sums[t]);
+        }
+    }
+
+    @External
+    public void giveawayBatch(int _id, Address[] _recipients, BigInteger[] _amounts, byte[][] _proof, byte[] _flags,
+                              @Optional int[] _indexes) {
+        Airdrop airdrop = _getAirdrop(_id);
+        _checkOpenAirdrop(airdrop);
+        int count = _recipients.length;
+        _require(count > 0 && _amounts.length == count, "Invalid length");
+        boolean indexed = airdrop.isIndexed();
+        _require(!indexed || (_indexes != null && _indexes.length == count), "Index required");
+
+        // the multiproof is of a single tree, so all recipients should be in the same shard
+        byte[] merkleRoot = _merkleRoot(airdrop, _recipients[0]);
+        byte[][] leaves = new byte[count][];
+        for(int i=0; i<count; i++) {
+            if(airdrop.isSharded())
+                _require(_shardOf(airdrop, _recipients[i]) == _shardOf(airdrop, _recipients[0]), "Different shards");
+            if(indexed) {
+                _require(_indexes[i] >= 0, "Invalid index");
+                leaves[i] = _indexedLeafHash(_indexes[i], _recipients[i], _amounts[i]);
+            } else {
+                leaves[i] = _leafHash(airdrop.leafVersion, _recipients[i], _amounts[i]);
+            }
+            _require(leaves[i] != null, "Invalid amount");
+        }
+        _require(_verifyMultiProof(merkleRoot, leaves, _proof, _flags), "Invalid proof");
+
+        // the word of the bitmap is written once for the consecutive indexes in the same word
+        DictDB<Integer, BigInteger> bitmap = claimedBitmap.at(_id);
+        int wordIndex = -1;
+        BigInteger word = null;
+        BigInteger total = BigInteger.ZERO;
+        for(int i=0; i<count; i++) {
+            if(indexed) {
+                int index = _indexes[i];
+                if(index >> 8 != wordIndex) {
+                    if(word != null)
+                        bitmap.set(wordIndex, word);
+                    wordIndex = index >> 8;
+                    word = bitmap.getOrDefault(wordIndex, BigInteger.ZERO);
+                }
+                _require(!word.testBit(index & 0xff), "Already claimed");
+                word = word.setBit(index & 0xff);
+            } else {
+                _checkNotClaimed(_id, _recipients[i]);
+                claimed.at(_id).set(_recipients[i], true);
+            }
+            total = total.add(_amounts[i]);
+        }
+        if(word != null)
+            bitmap.set(wordIndex, word);
+        _addClaimed(_id, total);
+
+        // all claims are recorded before the transfers, so a recipient can't claim again on the transfer
+        for(int i=0; i<count; i++) {
+            _transfer(airdrop.token, _recipients[i], _amounts[i]);
+        }
+        BatchClaimed(_id, airdrop.token, count, total);
+    }
+
     @External
     public void withdraw(Address _token, BigInteger _amount, @Optional Address _recipient) {
         _onlyAdmin();
@@ -226,6 +594,18 @@ public class MerkleAirdrop {
         return null;
     }
 
+    @External(readonly = true)
+    public byte[] shardRoot(int _id, int _shard) {
+        return shardRoots.at(_id).get(_shard);
+    }
+
+    @External(readonly = true)
+    public int shardOf(int _id, Address _address) {
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop != null && airdrop.isSharded(), "Not sharded airdrop");
+        return _shardOf(airdrop, _address);
+    }
+
     @External(readonly = true)
     public Map info(int _id) {
         Airdrop airdrop = airdrops.get(_id);
@@ -238,7 +618,10 @@ public class MerkleAirdrop {
                     "end", airdrop.endTime,
                     "total", airdrop.totalAmount,
                     "claimed", totalClaimed.getOrDefault(_id, BigInteger.ZERO),
-                    "remain", airdrop.totalAmount != null ? airdrop.totalAmount.subtract(totalClaimed.getOrDefault(_id, BigInteger.ZERO)) : BigInteger.ZERO
+                    "remain", airdrop.totalAmount != null ? airdrop.totalAmount.subtract(totalClaimed.getOrDefault(_id, BigInteger.ZERO)) : BigInteger.ZERO,
+                    "leafVersion", airdrop.leafVersion,
+                    "shards", airdrop.isSharded() ? 1 << airdrop.shardBits : 0,
+                    "nodeCacheDepth", airdrop.cacheDepth
             );
         }
         return Map.of();
@@ -246,32 +629,111 @@ public class MerkleAirdrop {
 
     @External(readonly = true)
     public boolean isClaimed(int _id, Address _address) {
+        _require(_address != null, "Invalid address");
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop == null || !airdrop.isIndexed(), "Index required");
         return claimed.at(_id).getOrDefault(_address, false);
     }
 
+    @External(readonly = true)
+    public boolean isClaimedByIndex(int _id, int _index) {
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop != null && airdrop.isIndexed(), "Not indexed airdrop");
+        _require(_index >= 0, "Invalid index");
+        return _isClaimed(_id, _index);
+    }
+
+    /*
+     * Returns the claimed statuses of the addresses, or the indexes for the indexed airdrop, as a bitset.
+     * The status of the i-th entry is the bit (i % 8) of the byte (i / 8), from the least significant bit.
+     */
+    @External(readonly = true)
+    public byte[] claimStatuses(int _id, @Optional Address[] _addresses, @Optional int[] _indexes) {
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop != null, "Invalid id");
+        boolean indexed = airdrop.isIndexed();
+        if(indexed)
+            _require(_indexes != null, "Index required");
+        int count = indexed ? _indexes.length : _addresses == null ? 0 : _addresses.length;
+        _require(count <= MAX_QUERY_COUNT, "Too many entries");
+
+        byte[] statuses = new byte[(count + 7) / 8];
+        if(indexed) {
+            // the word is read once for the consecutive indexes in it
+            DictDB<Integer, BigInteger> bitmap = claimedBitmap.at(_id);
+            int wordIndex = -1;
+            BigInteger word = BigInteger.ZERO;
+            for(int i=0; i<count; i++) {
+                int index = _indexes[i];
+                if(index < 0)
+                    continue;
+                if(index >> 8 != wordIndex) {
+                    wordIndex = index >> 8;
+                    word = bitmap.getOrDefault(wordIndex, BigInteger.ZERO);
+                }
+                if(word.testBit(index & 0xff))
+                    statuses[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        } else {
+            DictDB<Address, Boolean> claimedOf = claimed.at(_id);
+            for(int i=0; i<count; i++) {
+                if(claimedOf.getOrDefault(_addresses[i], false))
+                    statuses[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return statuses;
+    }
+
+    // the words of the claimed bitmap of the indexed airdrop from _fromWord, the word n has the indexes from 256 * n
+    @External(readonly = true)
+    public List claimedWords(int _id, int _fromWord, int _count) {
+        Airdrop airdrop = airdrops.get(_id);
+        _require(airdrop != null && airdrop.isIndexed(), "Not indexed airdrop");
+        _require(_fromWord >= 0 && _count >= 0 && _count <= MAX_QUERY_COUNT && _fromWord <= Integer.MAX_VALUE - _count, "Invalid range");
+
+        DictDB<Integer, BigInteger> bitmap = claimedBitmap.at(_id);
+        List list = new ArrayList();
+        for(int i=0; i<_count; i++) {
+            list.add(bitmap.getOrDefault(_fromWord + i, BigInteger.ZERO));
+        }
+        return list;
+    }
+
     @External(readonly = true)
     public boolean isClaimable(int _id, Address _address, BigInteger _amount, byte[][] _proof) {
         Airdrop airdrop = airdrops.get(_id);
         if(airdrop != null) {
-            long time = Context.getBlockTimestamp();
-            if(airdrop.startTime <= time && (airdrop.endTime == 0 || airdrop.endTime > time))
-                return _verifyProof(airdrop.merkleRoot, _address, _amount, _proof);
+            _require(!airdrop.isIndexed(), "Index required");
+            if(_isOpen(airdrop))
+                return _verifyProof(airdrop, _address, _amount, _proof, false);
         }
         return false;
     }
 
     @External(readonly = true)
-    public boolean isValidProof(byte[] _merkleRoot, byte[] _hash, byte[][] _proof) {
-        byte[] hash = _hash;
-        for(byte[] leaf : _proof) {
-            if(_compare(hash, leaf) <= 0) {
-                hash = _makeHash(hash, leaf);
-            } else {
-                hash = _makeHash(leaf, hash);
-            }
+    public boolean isClaimableByIndex(int _id, int _index, Address _address, BigInteger _amount, byte[][] _proof) {
+        Airdrop airdrop = airdrops.get(_id);
+        if(airdrop != null) {
+            _require(airdrop.isIndexed(), "Not indexed airdrop");
+            if(_isOpen(airdrop))
+                return _index >= 0 && _verifyProof(airdrop, _index, _address, _amount, _proof, false);
         }
+        return false;
+    }
+
+    @External(readonly = true)
+    public boolean isVerifiedNode(int _id, byte[] _node) {
+        return verifiedNodes.at(_id).getOrDefault(_node, 0) > 0;
+    }
+
+    @External(readonly = true)
+    public boolean isValidProof(byte[] _merkleRoot, byte[] _hash, byte[][] _proof) {
+        return _verifyProof(_merkleRoot, _hash, _proof);
+    }
 
-        return _compare(hash, _merkleRoot) == 0;
+    @External(readonly = true)
+    public boolean isValidMultiProof(byte[] _merkleRoot, byte[][] _hashes, byte[][] _proof, byte[] _flags) {
+        return _verifyMultiProof(_merkleRoot, _hashes, _proof, _flags);
     }
 
     @EventLog
@@ -283,9 +745,18 @@ public class MerkleAirdrop {
     @EventLog
     public void AirdropUpdated(int _id, long _startTime, long _endTime, String _totalAmount) {}
 
+    @EventLog
+    public void ShardRootUpdated(int _id, int _shard, byte[] _merkleRoot) {}
+
+    @EventLog
+    public void NodeCacheSet(int _id, int _depth) {}
+
     @EventLog
     public void Claimed(int _id, Address _token, Address _recipient, BigInteger _amount) {}
 
+    @EventLog
+    public void BatchClaimed(int _id, Address _token, int _count, BigInteger _amount) {}
+
     @EventLog
     public void Withdrawn(Address _token, Address _recipient, BigInteger _amount) {}
 }
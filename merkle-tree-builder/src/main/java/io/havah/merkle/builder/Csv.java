@@ -0,0 +1,66 @@
+package io.havah.merkle.builder;
+
+import java.math.BigInteger;
+
+/**
+ * CSV formats of the builder.
+ * <pre>
+ * rows   : address,amount[,index]
+ * proofs : index,address,amount,proof
+ * </pre>
+ * The index is the order of the row from 0 unless it's given in the row, and the proof is the list of hex nodes
+ * separated by ';'.
+ */
+public class Csv {
+    public static final String ROW_HEADER = "address,amount";
+    public static final String INDEXED_ROW_HEADER = "address,amount,index";
+    public static final String PROOF_HEADER = "index,address,amount,proof";
+
+    static boolean isSkipped(String line, String header) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.equals(header);
+    }
+
+    static boolean isSkippedRow(String line) {
+        return isSkipped(line, ROW_HEADER) || isSkipped(line, INDEXED_ROW_HEADER);
+    }
+
+    static String[] parseRow(String line) {
+        String[] f = line.split(",", -1);
+        if (f.length != 2 && f.length != 3)
+            throw new IllegalArgumentException("invalid row : " + line);
+        if (f.length == 2)
+            return new String[] { Leaf.normalize(f[0]), new BigInteger(f[1].trim()).toString() };
+        int index = Integer.parseInt(f[2].trim());
+        if (index < 0)
+            throw new IllegalArgumentException("invalid row : " + line);
+        return new String[] { Leaf.normalize(f[0]), new BigInteger(f[1].trim()).toString(), Integer.toString(index) };
+    }
+
+    // the index given in the row, or the order of the row
+    static int index(String[] row, int order) {
+        return row.length > 2 ? Integer.parseInt(row[2]) : order;
+    }
+
+    static String formatProof(int index, String address, String amount, byte[][] proof) {
+        StringBuilder sb = new StringBuilder(64 + proof.length * 67);
+        sb.append(index).append(',').append(address).append(',').append(amount).append(',');
+        for (int i = 0; i < proof.length; i++) {
+            if (i > 0)
+                sb.append(';');
+            sb.append(Hex.encode(proof[i]));
+        }
+        return sb.toString();
+    }
+
+    public static byte[][] parseProof(String value) {
+        if (value.isBlank())
+            return new byte[0][];
+        String[] nodes = value.split(";");
+        byte[][] proof = new byte[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            proof[i] = Hex.decode(nodes[i].trim());
+        }
+        return proof;
+    }
+}
@@ -0,0 +1,29 @@
+package io.havah.merkle.builder;
+
+public class Hex {
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    public static String encode(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 + bytes.length * 2).append("0x");
+        for (byte b : bytes) {
+            sb.append(DIGITS[(b >> 4) & 0xf]).append(DIGITS[b & 0xf]);
+        }
+        return sb.toString();
+    }
+
+    public static byte[] decode(String s) {
+        if (s.startsWith("0x"))
+            s = s.substring(2);
+        if (s.length() % 2 != 0)
+            throw new IllegalArgumentException("invalid hex " + s);
+        byte[] bytes = new byte[s.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16);
+            int lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0)
+                throw new IllegalArgumentException("invalid hex " + s);
+            bytes[i] = (byte) (hi << 4 | lo);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,66 @@
+package io.havah.merkle.builder;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Leaf encodings of MerkleAirdrop, the leaf hash is keccak-256 of the encoding.
+ * <pre>
+ * 1 : address string + amount decimal string
+ * 2 : 21 bytes address + 32 bytes big-endian amount
+ * 3 : 4 bytes big-endian index + 21 bytes address + 32 bytes big-endian amount
+ * </pre>
+ */
+public class Leaf {
+    public static final int V1 = 1;
+    public static final int V2 = 2;
+    public static final int V3 = 3;
+    static final int ADDRESS_SIZE = 21;
+
+    public static void checkVersion(int version) {
+        if (version < V1 || version > V3)
+            throw new IllegalArgumentException("invalid leaf version " + version);
+    }
+
+    public static byte[] encode(int version, int index, String address, BigInteger amount) {
+        if (amount.signum() < 0 || amount.bitLength() > 256)
+            throw new IllegalArgumentException("invalid amount " + amount);
+        if (version == V1)
+            return (normalize(address) + amount).getBytes(StandardCharsets.UTF_8);
+
+        int offset = version == V3 ? 4 : 0;
+        byte[] leaf = new byte[offset + ADDRESS_SIZE + 32];
+        if (version == V3) {
+            leaf[0] = (byte) (index >>> 24);
+            leaf[1] = (byte) (index >>> 16);
+            leaf[2] = (byte) (index >>> 8);
+            leaf[3] = (byte) index;
+        }
+        putAddress(leaf, offset, address);
+        byte[] value = amount.toByteArray();
+        int len = Math.min(value.length, 32);
+        System.arraycopy(value, value.length - len, leaf, leaf.length - len, len);
+        return leaf;
+    }
+
+    // same as score.Address.toString()
+    static String normalize(String address) {
+        String a = address.trim().toLowerCase();
+        if (a.length() != 42 || !(a.startsWith("hx") || a.startsWith("cx")))
+            throw new IllegalArgumentException("invalid address " + address);
+        return a;
+    }
+
+    // same as score.Address.toByteArray()
+    static void putAddress(byte[] dst, int offset, String address) {
+        String a = normalize(address);
+        dst[offset] = (byte) (a.startsWith("cx") ? 1 : 0);
+        for (int i = 0; i < 20; i++) {
+            int hi = Character.digit(a.charAt(2 + 2 * i), 16);
+            int lo = Character.digit(a.charAt(3 + 2 * i), 16);
+            if (hi < 0 || lo < 0)
+                throw new IllegalArgumentException("invalid address " + address);
+            dst[offset + 1 + i] = (byte) (hi << 4 | lo);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.havah.merkle.builder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line interface of the builder.
+ * <pre>
+ * --input &lt;file&gt; [--version &lt;1|2|3&gt;] [--out &lt;file&gt;] [--store &lt;file&gt;] [--parallelism &lt;n&gt;] [--block &lt;n&gt;]
+ * [--tmp &lt;dir&gt;] [--shards &lt;bits&gt;]
+ * </pre>
+ * The root is written to the standard output, the proofs are written to the CSV file if --out is given and to
+ * the ProofStore file if --store is given.
+ * <p>
+ * With --shards, the rows are split into 2^bits shards and the tree of each shard is built. --out and --store are
+ * the directories of the files of the shards, and the roots are written in the order of the shards.
+ */
+public class Main {
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--"))
+                usage();
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("input"))
+            usage();
+
+        Path input = Path.of(options.get("input"));
+        int version = options.containsKey("version") ? Integer.parseInt(options.get("version")) : Leaf.V1;
+        int parallelism = options.containsKey("parallelism") ? Integer.parseInt(options.get("parallelism"))
+                : Runtime.getRuntime().availableProcessors();
+        int blockSize = options.containsKey("block") ? Integer.parseInt(options.get("block"))
+                : MerkleTreeBuilder.DEFAULT_BLOCK_SIZE;
+        Path tmpDir = options.containsKey("tmp") ? Path.of(options.get("tmp")) : null;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        MerkleTreeBuilder builder = new MerkleTreeBuilder(version, pool, tmpDir, blockSize);
+        try {
+            if (options.containsKey("shards")) {
+                if (!options.containsKey("out"))
+                    usage();
+                buildShards(builder, input, Integer.parseInt(options.get("shards")), Path.of(options.get("out")),
+                        options.containsKey("store") ? Path.of(options.get("store")) : null, pool, blockSize);
+            } else {
+                build(builder, input, options.containsKey("out") ? Path.of(options.get("out")) : null,
+                        options.containsKey("store") ? Path.of(options.get("store")) : null, pool, blockSize, true);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static byte[] build(MerkleTreeBuilder builder, Path input, Path out, Path store, ForkJoinPool pool, int blockSize,
+                        boolean verbose) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             MerkleTree tree = builder.build(in)) {
+            if (verbose) {
+                System.out.println(Hex.encode(tree.root()));
+                System.err.println(tree.size() + " leaves of version " + tree.getLeafVersion() + ", depth " + tree.depth());
+            }
+            if (out != null) {
+                try (BufferedReader rows = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                     Writer w = new BufferedWriter(new OutputStreamWriter(
+                             Files.newOutputStream(out), StandardCharsets.UTF_8), 1 << 20)) {
+                    tree.writeProofs(rows, w, pool, blockSize);
+                }
+            }
+            if (store != null) {
+                ProofStore.write(tree, input, store);
+            }
+            return tree.root();
+        }
+    }
+
+    // the shards without rows get the zero root which no leaf is verified with
+    static void buildShards(MerkleTreeBuilder builder, Path input, int shardBits, Path dir, Path storeDir,
+                            ForkJoinPool pool, int blockSize) throws IOException {
+        int[] counts = Shards.split(input, shardBits, dir);
+        if (storeDir != null)
+            Files.createDirectories(storeDir);
+        int rows = 0, depth = 0;
+        for (int shard = 0; shard < counts.length; shard++) {
+            byte[] root = new byte[NodeArray.NODE_SIZE];
+            if (counts[shard] > 0) {
+                root = build(builder, Shards.shardFile(dir, shard), dir.resolve("proofs-" + shard + ".csv"),
+                        storeDir != null ? storeDir.resolve("store-" + shard + ".bin") : null, pool, blockSize, false);
+                rows += counts[shard];
+                depth = Math.max(depth, 32 - Integer.numberOfLeadingZeros(counts[shard] - 1));
+            }
+            System.out.println(Hex.encode(root));
+        }
+        System.err.println(rows + " leaves in " + counts.length + " shards, depth " + depth + " at most");
+    }
+
+    static void usage() {
+        System.err.println("usage: --input <file> [--version <1|2|3>] [--out <file>] [--store <file>] [--parallelism <n>]"
+                + " [--block <n>] [--tmp <dir>] [--shards <bits>]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,164 @@
+package io.havah.merkle.builder;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merkle tree built by MerkleTreeBuilder. The levels are from the sorted leaves to the root.
+ */
+public class MerkleTree implements Closeable {
+    private final int leafVersion;
+    private final List<NodeArray> levels;
+    private final int[] positions;
+
+    MerkleTree(int leafVersion, List<NodeArray> levels, int[] positions) {
+        this.leafVersion = leafVersion;
+        this.levels = levels;
+        this.positions = positions;
+    }
+
+    public int getLeafVersion() {
+        return leafVersion;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public int depth() {
+        return levels.size() - 1;
+    }
+
+    public byte[] root() {
+        return levels.get(levels.size() - 1).get(0);
+    }
+
+    /**
+     * Returns the position of the leaf of the row in the sorted leaves.
+     */
+    public int position(int row) {
+        return positions[row];
+    }
+
+    NodeArray level(int depth) {
+        return levels.get(depth);
+    }
+
+    public byte[] leaf(int position) {
+        return levels.get(0).get(position);
+    }
+
+    /**
+     * Returns the proof of the row which is accepted by MerkleAirdrop.
+     */
+    public byte[][] proof(int row) {
+        return proofAt(positions[row]);
+    }
+
+    public byte[][] proofAt(int position) {
+        byte[][] proof = new byte[depth()][];
+        int count = 0;
+        long index = position;
+        for (int d = 0; d < depth(); d++, index >>= 1) {
+            NodeArray level = levels.get(d);
+            long sibling = index ^ 1;
+            if (sibling < level.size()) {
+                proof[count++] = level.get(sibling);
+            }
+        }
+        return count == proof.length ? proof : Arrays.copyOf(proof, count);
+    }
+
+    /**
+     * Reads the rows again from the CSV reader and writes their proofs to the CSV writer in the same order.
+     * It fails if the rows are different from the rows of the tree. Returns the number of rows.
+     */
+    public int writeProofs(BufferedReader in, Writer out, ForkJoinPool pool, int blockSize) throws IOException {
+        out.write(Csv.PROOF_HEADER);
+        out.write('\n');
+
+        int count = 0;
+        List<String[]> block = new ArrayList<>(blockSize);
+        String[] lines = new String[blockSize];
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (Csv.isSkippedRow(line))
+                continue;
+            block.add(Csv.parseRow(line));
+            if (block.size() == blockSize) {
+                count = flush(block, count, lines, pool, out);
+            }
+        }
+        count = flush(block, count, lines, pool, out);
+        if (count != size())
+            throw new IllegalArgumentException("rows are changed");
+        out.flush();
+        return count;
+    }
+
+    private int flush(List<String[]> block, int base, String[] lines, ForkJoinPool pool, Writer out) throws IOException {
+        if ((long) base + block.size() > size())
+            throw new IllegalArgumentException("rows are changed");
+        pool.invoke(new ProofTask(block, base, lines, 0, block.size()));
+        for (int i = 0; i < block.size(); i++) {
+            out.write(lines[i]);
+            out.write('\n');
+            lines[i] = null;
+        }
+        int count = base + block.size();
+        block.clear();
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (NodeArray level : levels) {
+            level.close();
+        }
+    }
+
+    class ProofTask extends RecursiveAction {
+        private final List<String[]> block;
+        private final int base;
+        private final String[] lines;
+        private final int from;
+        private final int to;
+
+        ProofTask(List<String[]> block, int base, String[] lines, int from, int to) {
+            this.block = block;
+            this.base = base;
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MerkleTreeBuilder.THRESHOLD) {
+                KeccakDigest digest = new KeccakDigest(256);
+                for (int i = from; i < to; i++) {
+                    int row = base + i;
+                    String[] r = block.get(i);
+                    int index = Csv.index(r, row);
+                    byte[] leaf = Leaf.encode(leafVersion, index, r[0], new BigInteger(r[1]));
+                    if (!Arrays.equals(MerkleTreeBuilder.hashLeaf(digest, leaf), leaf(positions[row])))
+                        throw new IllegalArgumentException("row " + row + " is changed");
+                    lines[i] = Csv.formatProof(index, r[0], r[1], proof(row));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ProofTask(block, base, lines, from, mid), new ProofTask(block, base, lines, mid, to));
+        }
+    }
+}
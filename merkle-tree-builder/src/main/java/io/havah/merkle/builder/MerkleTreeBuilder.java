@@ -0,0 +1,294 @@
+package io.havah.merkle.builder;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds the merkle tree of MerkleAirdrop from the rows of recipients, in the same way as merkletreejs with
+ * hashLeaves, sortLeaves and sortPairs options. The last odd node of a level goes up to the next level as it is.
+ * <p>
+ * The rows are streamed by blocks and their leaves are hashed in parallel. The nodes of the tree are kept in
+ * temporary files mapped to memory, and only the position of each row is kept in the heap.
+ */
+public class MerkleTreeBuilder {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+    static final int THRESHOLD = 1024;
+    static final int BUCKETS = 1 << 16;
+
+    private final int leafVersion;
+    private final ForkJoinPool pool;
+    private final Path tmpDir;
+    private final int blockSize;
+
+    public MerkleTreeBuilder(int leafVersion, ForkJoinPool pool, Path tmpDir, int blockSize) {
+        Leaf.checkVersion(leafVersion);
+        this.leafVersion = leafVersion;
+        this.pool = pool;
+        this.tmpDir = tmpDir;
+        this.blockSize = blockSize;
+    }
+
+    public MerkleTree build(BufferedReader in) throws IOException {
+        List<NodeArray> levels = new ArrayList<>();
+        try (NodeArray hashes = new NodeArray(tmpDir)) {
+            int count = hashLeaves(in, hashes);
+            if (count == 0)
+                throw new IllegalArgumentException("no rows");
+
+            int[] rows = sortLeaves(hashes, count);
+            NodeArray leaves = new NodeArray(tmpDir);
+            levels.add(leaves);
+            leaves.setSize(count);
+            pool.invoke(new Gather(hashes, leaves, rows, 0, count));
+
+            int[] positions = new int[count];
+            for (int i = 0; i < count; i++) {
+                positions[rows[i]] = i;
+            }
+            rows = null;
+
+            NodeArray level = leaves;
+            while (level.size() > 1) {
+                NodeArray next = new NodeArray(tmpDir);
+                levels.add(next);
+                next.setSize((level.size() + 1) / 2);
+                pool.invoke(new HashLevel(level, next, 0, next.size()));
+                level = next;
+            }
+            return new MerkleTree(leafVersion, levels, positions);
+        } catch (IOException | RuntimeException e) {
+            for (NodeArray level : levels) {
+                level.close();
+            }
+            throw e;
+        }
+    }
+
+    // hashes the leaves in the order of the rows
+    private int hashLeaves(BufferedReader in, NodeArray hashes) throws IOException {
+        int count = 0;
+        List<String[]> block = new ArrayList<>(blockSize);
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (Csv.isSkippedRow(line))
+                continue;
+            block.add(Csv.parseRow(line));
+            if (block.size() == blockSize) {
+                count = hashBlock(block, count, hashes);
+            }
+        }
+        return hashBlock(block, count, hashes);
+    }
+
+    private int hashBlock(List<String[]> block, int base, NodeArray hashes) throws IOException {
+        if ((long) base + block.size() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many rows");
+        int count = base + block.size();
+        hashes.setSize(count);
+        pool.invoke(new HashRows(leafVersion, block, base, hashes, 0, block.size()));
+        block.clear();
+        return count;
+    }
+
+    // returns the rows in the order of their leaves, the rows are distributed to the buckets by the first two bytes
+    private int[] sortLeaves(NodeArray hashes, int count) {
+        int[] starts = new int[BUCKETS + 1];
+        for (int i = 0; i < count; i++) {
+            starts[hashes.prefix(i) + 1]++;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] rows = new int[count];
+        int[] next = new int[BUCKETS];
+        System.arraycopy(starts, 0, next, 0, BUCKETS);
+        for (int i = 0; i < count; i++) {
+            rows[next[hashes.prefix(i)]++] = i;
+        }
+        pool.invoke(new SortBuckets(hashes, rows, new int[count], starts, 0, BUCKETS));
+        return rows;
+    }
+
+    static byte[] hashLeaf(KeccakDigest digest, byte[] leaf) {
+        byte[] hash = new byte[NodeArray.NODE_SIZE];
+        digest.update(leaf, 0, leaf.length);
+        digest.doFinal(hash, 0);
+        return hash;
+    }
+
+    static class HashRows extends RecursiveAction {
+        private final int leafVersion;
+        private final List<String[]> block;
+        private final int base;
+        private final NodeArray hashes;
+        private final int from;
+        private final int to;
+
+        HashRows(int leafVersion, List<String[]> block, int base, NodeArray hashes, int from, int to) {
+            this.leafVersion = leafVersion;
+            this.block = block;
+            this.base = base;
+            this.hashes = hashes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                KeccakDigest digest = new KeccakDigest(256);
+                for (int i = from; i < to; i++) {
+                    String[] row = block.get(i);
+                    byte[] leaf = Leaf.encode(leafVersion, Csv.index(row, base + i), row[0], new BigInteger(row[1]));
+                    hashes.put(base + i, hashLeaf(digest, leaf), 0);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new HashRows(leafVersion, block, base, hashes, from, mid),
+                    new HashRows(leafVersion, block, base, hashes, mid, to));
+        }
+    }
+
+    static class SortBuckets extends RecursiveAction {
+        private final NodeArray hashes;
+        private final int[] rows;
+        private final int[] tmp;
+        private final int[] starts;
+        private final int from;
+        private final int to;
+
+        SortBuckets(NodeArray hashes, int[] rows, int[] tmp, int[] starts, int from, int to) {
+            this.hashes = hashes;
+            this.rows = rows;
+            this.tmp = tmp;
+            this.starts = starts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || starts[to] - starts[from] <= THRESHOLD) {
+                for (int b = from; b < to; b++) {
+                    sort(starts[b], starts[b + 1]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortBuckets(hashes, rows, tmp, starts, from, mid),
+                    new SortBuckets(hashes, rows, tmp, starts, mid, to));
+        }
+
+        private void sort(int lo, int hi) {
+            if (hi - lo <= 16) {
+                for (int i = lo + 1; i < hi; i++) {
+                    int row = rows[i];
+                    int j = i - 1;
+                    while (j >= lo && hashes.compare(rows[j], row) > 0) {
+                        rows[j + 1] = rows[j];
+                        j--;
+                    }
+                    rows[j + 1] = row;
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            sort(lo, mid);
+            sort(mid, hi);
+            if (hashes.compare(rows[mid - 1], rows[mid]) <= 0)
+                return;
+            System.arraycopy(rows, lo, tmp, lo, hi - lo);
+            for (int i = lo, l = lo, r = mid; i < hi; i++) {
+                if (r >= hi || (l < mid && hashes.compare(tmp[l], tmp[r]) <= 0)) {
+                    rows[i] = tmp[l++];
+                } else {
+                    rows[i] = tmp[r++];
+                }
+            }
+        }
+    }
+
+    static class Gather extends RecursiveAction {
+        private final NodeArray hashes;
+        private final NodeArray leaves;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        Gather(NodeArray hashes, NodeArray leaves, int[] rows, int from, int to) {
+            this.hashes = hashes;
+            this.leaves = leaves;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD * 16) {
+                byte[] node = new byte[NodeArray.NODE_SIZE];
+                for (int i = from; i < to; i++) {
+                    hashes.get(rows[i], node, 0);
+                    leaves.put(i, node, 0);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Gather(hashes, leaves, rows, from, mid), new Gather(hashes, leaves, rows, mid, to));
+        }
+    }
+
+    static class HashLevel extends RecursiveAction {
+        private final NodeArray level;
+        private final NodeArray next;
+        private final long from;
+        private final long to;
+
+        HashLevel(NodeArray level, NodeArray next, long from, long to) {
+            this.level = level;
+            this.next = next;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                KeccakDigest digest = new KeccakDigest(256);
+                byte[] pair = new byte[NodeArray.NODE_SIZE * 2];
+                byte[] hash = new byte[NodeArray.NODE_SIZE];
+                for (long i = from; i < to; i++) {
+                    long left = 2 * i;
+                    long right = left + 1;
+                    if (right < level.size()) {
+                        // sorted pair
+                        if (level.compare(left, right) > 0) {
+                            left = right;
+                            right = 2 * i;
+                        }
+                        level.get(left, pair, 0);
+                        level.get(right, pair, NodeArray.NODE_SIZE);
+                        digest.update(pair, 0, pair.length);
+                        digest.doFinal(hash, 0);
+                        next.put(i, hash, 0);
+                    } else {
+                        level.get(left, hash, 0);
+                        next.put(i, hash, 0);
+                    }
+                }
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new HashLevel(level, next, from, mid), new HashLevel(level, next, mid, to));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.havah.merkle.builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array of 32 bytes nodes in a temporary file mapped to memory, so the levels of a large tree are not in the heap.
+ * Nodes at different indexes can be read and written by multiple threads, but the capacity should be grown by
+ * one thread while no other thread uses the array.
+ */
+public class NodeArray implements Closeable {
+    public static final int NODE_SIZE = 32;
+    static final int CHUNK_SHIFT = 20;
+    static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_NODES - 1;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long size;
+
+    public NodeArray(Path dir) throws IOException {
+        Path file = dir == null ? Files.createTempFile("nodes", ".bin") : Files.createTempFile(dir, "nodes", ".bin");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void setSize(long size) throws IOException {
+        while (((long) chunks.size() << CHUNK_SHIFT) < size) {
+            long offset = ((long) chunks.size() << CHUNK_SHIFT) * NODE_SIZE;
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) CHUNK_NODES * NODE_SIZE));
+        }
+        this.size = size;
+    }
+
+    public void get(long index, byte[] dst, int offset) {
+        MappedByteBuffer chunk = chunks.get((int) (index >>> CHUNK_SHIFT));
+        int pos = (int) (index & CHUNK_MASK) * NODE_SIZE;
+        for (int i = 0; i < NODE_SIZE; i++) {
+            dst[offset + i] = chunk.get(pos + i);
+        }
+    }
+
+    public byte[] get(long index) {
+        byte[] node = new byte[NODE_SIZE];
+        get(index, node, 0);
+        return node;
+    }
+
+    public void put(long index, byte[] src, int offset) {
+        MappedByteBuffer chunk = chunks.get((int) (index >>> CHUNK_SHIFT));
+        int pos = (int) (index & CHUNK_MASK) * NODE_SIZE;
+        for (int i = 0; i < NODE_SIZE; i++) {
+            chunk.put(pos + i, src[offset + i]);
+        }
+    }
+
+    /**
+     * Compares the nodes as unsigned bytes, in the same way as MerkleAirdrop._compare().
+     */
+    public int compare(long a, long b) {
+        MappedByteBuffer ca = chunks.get((int) (a >>> CHUNK_SHIFT));
+        MappedByteBuffer cb = chunks.get((int) (b >>> CHUNK_SHIFT));
+        int pa = (int) (a & CHUNK_MASK) * NODE_SIZE;
+        int pb = (int) (b & CHUNK_MASK) * NODE_SIZE;
+        for (int i = 0; i < NODE_SIZE; i++) {
+            int cmp = Integer.compare(ca.get(pa + i) & 0xff, cb.get(pb + i) & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the first two bytes of the node as an unsigned number.
+     */
+    int prefix(long index) {
+        MappedByteBuffer chunk = chunks.get((int) (index >>> CHUNK_SHIFT));
+        return chunk.getShort((int) (index & CHUNK_MASK) * NODE_SIZE) & 0xffff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,375 @@
+package io.havah.merkle.builder;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Proofs of a merkle tree in a file mapped to memory, to look up the amount and the proof of an address
+ * without loading the proofs into the heap.
+ * <pre>
+ * header  : magic(4) format(4) leafVersion(4) count(4) depth(4) reserved(12) root(32)
+ * buckets : (65536 + 1) * 4 bytes, the first entry of each 2 bytes prefix of the address body
+ * entries : count * (address body(20) address type(1) amount(32) index(4) position(4)), sorted by address
+ * nodes   : levels of the tree from the sorted leaves to the root, 32 bytes per node
+ * </pre>
+ * The proof of an entry is the siblings of its position in the levels, so the nodes take about 64 bytes per
+ * entry regardless of the depth. Lookups read the mapped file only, and can be called by multiple threads.
+ */
+public class ProofStore implements Closeable {
+    static final byte[] MAGIC = "MKPS".getBytes(StandardCharsets.US_ASCII);
+    static final int FORMAT = 1;
+    static final int HEADER_SIZE = 64;
+    static final int BUCKETS = 1 << 16;
+    static final int BUCKETS_OFFSET = HEADER_SIZE;
+    static final int ENTRIES_OFFSET = BUCKETS_OFFSET + (BUCKETS + 1) * 4;
+    static final int ADDRESS_SIZE = 21;
+    static final int ENTRY_SIZE = ADDRESS_SIZE + 32 + 4 + 4;
+    static final int CHUNK_SHIFT = 30;
+    static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int leafVersion;
+    private final int count;
+    private final int depth;
+    private final long[] levelOffsets;
+    private final long[] levelSizes;
+
+    private ProofStore(FileChannel channel, MappedByteBuffer[] chunks) throws IOException {
+        this.channel = channel;
+        this.chunks = chunks;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (getByte(i) != MAGIC[i])
+                throw new IOException("not a proof store");
+        }
+        if (getInt(4) != FORMAT)
+            throw new IOException("unknown format " + getInt(4));
+        leafVersion = getInt(8);
+        count = getInt(12);
+        depth = getInt(16);
+        levelOffsets = new long[depth + 1];
+        levelSizes = new long[depth + 1];
+        layout(count, levelOffsets, levelSizes);
+    }
+
+    // returns the size of the file
+    static long layout(int count, long[] levelOffsets, long[] levelSizes) {
+        long offset = ENTRIES_OFFSET + (long) count * ENTRY_SIZE;
+        long size = count;
+        for (int d = 0; d < levelOffsets.length; d++) {
+            levelOffsets[d] = offset;
+            levelSizes[d] = size;
+            offset += size * NodeArray.NODE_SIZE;
+            size = (size + 1) / 2;
+        }
+        return offset;
+    }
+
+    public static ProofStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ProofStore(channel, map(channel, FileChannel.MapMode.READ_ONLY, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long offset = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, offset, Math.min(size - offset, 1L << CHUNK_SHIFT));
+        }
+        return chunks;
+    }
+
+    /**
+     * Writes the proof store of the tree. The rows are read from the CSV file twice, once to count the
+     * addresses of each bucket and once to place the entries.
+     */
+    public static void write(MerkleTree tree, Path rows, Path file) throws IOException {
+        int[] starts = new int[BUCKETS + 1];
+        byte[] address = new byte[ADDRESS_SIZE];
+        try (BufferedReader in = Files.newBufferedReader(rows, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (Csv.isSkippedRow(line))
+                    continue;
+                Leaf.putAddress(address, 0, Csv.parseRow(line)[0]);
+                starts[bucket(address) + 1]++;
+            }
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            starts[i + 1] += starts[i];
+        }
+        if (starts[BUCKETS] != tree.size())
+            throw new IllegalArgumentException("rows are changed");
+
+        long[] levelOffsets = new long[tree.depth() + 1];
+        long size = layout(tree.size(), levelOffsets, new long[tree.depth() + 1]);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] chunks = map(channel, FileChannel.MapMode.READ_WRITE, size);
+            ProofStoreWriter w = new ProofStoreWriter(chunks);
+            w.put(0, MAGIC, 0, MAGIC.length);
+            w.putInt(4, FORMAT);
+            w.putInt(8, tree.getLeafVersion());
+            w.putInt(12, tree.size());
+            w.putInt(16, tree.depth());
+            w.put(32, tree.root(), 0, NodeArray.NODE_SIZE);
+            for (int i = 0; i <= BUCKETS; i++) {
+                w.putInt(BUCKETS_OFFSET + i * 4L, starts[i]);
+            }
+
+            w.putEntries(tree, rows, starts);
+            w.sortBuckets(starts);
+
+            byte[] node = new byte[NodeArray.NODE_SIZE];
+            for (int d = 0; d <= tree.depth(); d++) {
+                NodeArray level = tree.level(d);
+                for (long i = 0; i < level.size(); i++) {
+                    level.get(i, node, 0);
+                    w.put(levelOffsets[d] + i * NodeArray.NODE_SIZE, node, 0, node.length);
+                }
+            }
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+    }
+
+    // the first two bytes of the address body
+    static int bucket(byte[] address) {
+        return (address[1] & 0xff) << 8 | (address[2] & 0xff);
+    }
+
+    public int getLeafVersion() {
+        return leafVersion;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public byte[] root() {
+        byte[] root = new byte[NodeArray.NODE_SIZE];
+        get(32, root, 0, root.length);
+        return root;
+    }
+
+    /**
+     * Returns the first entry of the address or -1 if there is no entry. The address is 21 bytes as
+     * score.Address.toByteArray(). The entries of the same address are next to each other in the order of index.
+     */
+    public int find(byte[] address) {
+        int b = bucket(address);
+        int lo = getInt(BUCKETS_OFFSET + b * 4L);
+        int hi = getInt(BUCKETS_OFFSET + (b + 1) * 4L);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, address) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < count && compare(lo, address) == 0 ? lo : -1;
+    }
+
+    public int find(String address) {
+        byte[] bytes = new byte[ADDRESS_SIZE];
+        Leaf.putAddress(bytes, 0, address);
+        return find(bytes);
+    }
+
+    // compares the address of the entry with the address in the order of body and type
+    int compare(int entry, byte[] address) {
+        long offset = entryOffset(entry);
+        for (int i = 0; i < ADDRESS_SIZE - 1; i++) {
+            int cmp = Integer.compare(getByte(offset + i) & 0xff, address[i + 1] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(getByte(offset + ADDRESS_SIZE - 1) & 0xff, address[0] & 0xff);
+    }
+
+    public String address(int entry) {
+        long offset = entryOffset(entry);
+        StringBuilder sb = new StringBuilder(42).append(getByte(offset + ADDRESS_SIZE - 1) == 1 ? "cx" : "hx");
+        for (int i = 0; i < ADDRESS_SIZE - 1; i++) {
+            sb.append(String.format("%02x", getByte(offset + i) & 0xff));
+        }
+        return sb.toString();
+    }
+
+    public BigInteger amount(int entry) {
+        byte[] amount = new byte[32];
+        get(entryOffset(entry) + ADDRESS_SIZE, amount, 0, amount.length);
+        return new BigInteger(1, amount);
+    }
+
+    /**
+     * Returns the index of the leaf, which is the order of the row unless the row has its index.
+     */
+    public int index(int entry) {
+        return getInt(entryOffset(entry) + ADDRESS_SIZE + 32);
+    }
+
+    int position(int entry) {
+        return getInt(entryOffset(entry) + ADDRESS_SIZE + 36);
+    }
+
+    /**
+     * Returns the proof of the entry which is accepted by MerkleAirdrop.
+     */
+    public byte[][] proof(int entry) {
+        int position = position(entry);
+        int length = 0;
+        for (int d = 0; d < depth; d++) {
+            if (((position >>> d) ^ 1) < levelSizes[d])
+                length++;
+        }
+        byte[][] proof = new byte[length][];
+        for (int d = 0, i = 0; d < depth; d++) {
+            long sibling = (position >>> d) ^ 1;
+            if (sibling < levelSizes[d]) {
+                proof[i] = new byte[NodeArray.NODE_SIZE];
+                get(levelOffsets[d] + sibling * NodeArray.NODE_SIZE, proof[i++], 0, NodeArray.NODE_SIZE);
+            }
+        }
+        return proof;
+    }
+
+    long entryOffset(int entry) {
+        return ENTRIES_OFFSET + (long) entry * ENTRY_SIZE;
+    }
+
+    byte getByte(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].get((int) (offset & CHUNK_MASK));
+    }
+
+    int getInt(long offset) {
+        return (getByte(offset) & 0xff) << 24 | (getByte(offset + 1) & 0xff) << 16
+                | (getByte(offset + 2) & 0xff) << 8 | (getByte(offset + 3) & 0xff);
+    }
+
+    void get(long offset, byte[] dst, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[from + i] = getByte(offset + i);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(chunks, null);
+        channel.close();
+    }
+
+    static class ProofStoreWriter {
+        private final MappedByteBuffer[] chunks;
+
+        ProofStoreWriter(MappedByteBuffer[] chunks) {
+            this.chunks = chunks;
+        }
+
+        void put(long offset, byte[] src, int from, int length) {
+            for (int i = 0; i < length; i++) {
+                chunks[(int) ((offset + i) >>> CHUNK_SHIFT)].put((int) ((offset + i) & CHUNK_MASK), src[from + i]);
+            }
+        }
+
+        void get(long offset, byte[] dst, int from, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[from + i] = chunks[(int) ((offset + i) >>> CHUNK_SHIFT)].get((int) ((offset + i) & CHUNK_MASK));
+            }
+        }
+
+        void putInt(long offset, int value) {
+            put(offset, new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value }, 0, 4);
+        }
+
+        // places the entries in their buckets, and checks the rows with the leaves of the tree
+        void putEntries(MerkleTree tree, Path rows, int[] starts) throws IOException {
+            int[] next = Arrays.copyOf(starts, BUCKETS);
+            KeccakDigest digest = new KeccakDigest(256);
+            byte[] address = new byte[ADDRESS_SIZE];
+            byte[] entry = new byte[ENTRY_SIZE];
+            try (BufferedReader in = Files.newBufferedReader(rows, StandardCharsets.UTF_8)) {
+                int row = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (Csv.isSkippedRow(line))
+                        continue;
+                    String[] r = Csv.parseRow(line);
+                    BigInteger amount = new BigInteger(r[1]);
+                    int position = tree.position(row);
+                    int index = Csv.index(r, row);
+                    byte[] leaf = Leaf.encode(tree.getLeafVersion(), index, r[0], amount);
+                    if (!Arrays.equals(MerkleTreeBuilder.hashLeaf(digest, leaf), tree.leaf(position)))
+                        throw new IllegalArgumentException("row " + row + " is changed");
+
+                    Leaf.putAddress(address, 0, r[0]);
+                    System.arraycopy(address, 1, entry, 0, ADDRESS_SIZE - 1);
+                    entry[ADDRESS_SIZE - 1] = address[0];
+                    Arrays.fill(entry, ADDRESS_SIZE, ADDRESS_SIZE + 32, (byte) 0);
+                    byte[] value = amount.toByteArray();
+                    int len = Math.min(value.length, 32);
+                    System.arraycopy(value, value.length - len, entry, ADDRESS_SIZE + 32 - len, len);
+                    putIntAt(entry, ADDRESS_SIZE + 32, index);
+                    putIntAt(entry, ADDRESS_SIZE + 36, position);
+                    put(ENTRIES_OFFSET + (long) next[bucket(address)]++ * ENTRY_SIZE, entry, 0, ENTRY_SIZE);
+                    row++;
+                }
+            }
+        }
+
+        // sorts the entries of each bucket by the address and the index
+        void sortBuckets(int[] starts) {
+            for (int b = 0; b < BUCKETS; b++) {
+                int n = starts[b + 1] - starts[b];
+                if (n < 2)
+                    continue;
+                long offset = ENTRIES_OFFSET + (long) starts[b] * ENTRY_SIZE;
+                byte[] entries = new byte[n * ENTRY_SIZE];
+                get(offset, entries, 0, entries.length);
+                Integer[] order = new Integer[n];
+                for (int i = 0; i < n; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (x, y) -> {
+                    int cmp = Arrays.compareUnsigned(entries, x * ENTRY_SIZE, x * ENTRY_SIZE + ADDRESS_SIZE,
+                            entries, y * ENTRY_SIZE, y * ENTRY_SIZE + ADDRESS_SIZE);
+                    return cmp != 0 ? cmp : Arrays.compareUnsigned(
+                            entries, x * ENTRY_SIZE + ADDRESS_SIZE + 32, x * ENTRY_SIZE + ADDRESS_SIZE + 36,
+                            entries, y * ENTRY_SIZE + ADDRESS_SIZE + 32, y * ENTRY_SIZE + ADDRESS_SIZE + 36);
+                });
+                for (int i = 0; i < n; i++) {
+                    put(offset + (long) i * ENTRY_SIZE, entries, order[i] * ENTRY_SIZE, ENTRY_SIZE);
+                }
+            }
+        }
+
+        static void putIntAt(byte[] dst, int offset, int value) {
+            dst[offset] = (byte) (value >>> 24);
+            dst[offset + 1] = (byte) (value >>> 16);
+            dst[offset + 2] = (byte) (value >>> 8);
+            dst[offset + 3] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.havah.merkle.builder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Shards of the sharded airdrop of MerkleAirdrop. The shard of an address is the leading shardBits bits of its
+ * 20 bytes body, and each shard has its own tree built from the rows of the shard.
+ */
+public class Shards {
+    public static final int MAX_SHARD_BITS = 16;
+    static final int OPEN_FILES = 256;
+
+    public static void checkShardBits(int shardBits) {
+        if (shardBits < 1 || shardBits > MAX_SHARD_BITS)
+            throw new IllegalArgumentException("invalid shard bits " + shardBits);
+    }
+
+    public static int shardOf(String address, int shardBits) {
+        byte[] bytes = new byte[Leaf.ADDRESS_SIZE];
+        Leaf.putAddress(bytes, 0, address);
+        int prefix = (bytes[1] & 0xff) << 8 | (bytes[2] & 0xff);
+        return prefix >>> (MAX_SHARD_BITS - shardBits);
+    }
+
+    public static Path shardFile(Path dir, int shard) {
+        return dir.resolve("shard-" + shard + ".csv");
+    }
+
+    /**
+     * Splits the rows of the input into the files of the shards in the directory. The rows keep their index in
+     * the input, so the indexes of version 3 leaves are unique over the shards as the claimed bitmap of the airdrop.
+     * The input is read once per 256 shards to bound the open files, and the shards without rows have no file.
+     * Returns the number of rows of each shard.
+     */
+    public static int[] split(Path input, int shardBits, Path dir) throws IOException {
+        checkShardBits(shardBits);
+        Files.createDirectories(dir);
+        int[] counts = new int[1 << shardBits];
+        for (int first = 0; first < counts.length; first += OPEN_FILES) {
+            Writer[] writers = new Writer[Math.min(OPEN_FILES, counts.length - first)];
+            try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                int row = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (Csv.isSkippedRow(line))
+                        continue;
+                    String[] r = Csv.parseRow(line);
+                    int index = Csv.index(r, row++);
+                    int shard = shardOf(r[0], shardBits);
+                    if (shard < first || shard >= first + writers.length)
+                        continue;
+                    Writer w = writers[shard - first];
+                    if (w == null) {
+                        w = writers[shard - first] = Files.newBufferedWriter(shardFile(dir, shard), StandardCharsets.UTF_8);
+                        w.write(Csv.INDEXED_ROW_HEADER);
+                        w.write('\n');
+                    }
+                    w.write(r[0] + "," + r[1] + "," + index);
+                    w.write('\n');
+                    counts[shard]++;
+                }
+            } finally {
+                for (Writer w : writers) {
+                    if (w != null)
+                        w.close();
+                }
+            }
+        }
+        return counts;
+    }
+}
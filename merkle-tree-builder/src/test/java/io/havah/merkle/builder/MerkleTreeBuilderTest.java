@@ -0,0 +1,151 @@
+package io.havah.merkle.builder;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import io.havah.contract.MerkleAirdrop;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import score.Address;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MerkleTreeBuilderTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final Address ZERO_ADDRESS = Address.fromString("hx0000000000000000000000000000000000000000");
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static Score airdrop;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        airdrop = sm.deploy(owner, MerkleAirdrop.class, "test");
+    }
+
+    private static String rows(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(Csv.ROW_HEADER).append('\n');
+        for (int i = 0; i < count; i++) {
+            sb.append(i % 10 == 9 ? "cx" : "hx").append(String.format("%040x", new BigInteger(160, random)))
+                    .append(',').append(new BigInteger(1 + random.nextInt(255), random)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static MerkleTree build(int version, String rows, int blockSize) throws Exception {
+        return new MerkleTreeBuilder(version, pool, null, blockSize).build(new BufferedReader(new StringReader(rows)));
+    }
+
+    @Test
+    void readmeTree() throws Exception {
+        String rows = Csv.ROW_HEADER + "\n"
+                + "hx3e65ce9ff07186df3ee2bda02d20420e2da5da80,10000000000000000000\n"
+                + "hx34e7759532571fe15c129a045627b437869c818c,20000000000000000000\n"
+                + "hx1dc6d2f7fe9e1f969279e816b3fdbfbe4134bf3d,30000000000000000000\n"
+                + "hxe0afc6ff8a605f24abd42b2cf2f1e0de11a797ff,40000000000000000000\n"
+                + "hx36b8ecb38486d273c4cb87fd8d2509b2e441c02d,50000000000000000000\n";
+        try (MerkleTree tree = build(Leaf.V1, rows, 2)) {
+            assertEquals("0x8935f1f69424db7af043d2194308fd86cc3ac83b7992a059353605f303c76bab", Hex.encode(tree.root()));
+            assertArrayEquals(new byte[][] {
+                    Hex.decode("f199d54237e659b413c31fcf754fe8ded9a038d459d1e4f25eee5453c8720489")
+            }, tree.proof(2));
+        }
+    }
+
+    @Test
+    void conformance() throws Exception {
+        for (int version = Leaf.V1; version <= Leaf.V3; version++) {
+            String rows = rows(1001, version);
+            try (MerkleTree tree = build(version, rows, 100)) {
+                airdrop.invoke(owner, "addAirdrop", ZERO_ADDRESS, tree.root(), sm.getBlock().getTimestamp(), 0L,
+                        BigInteger.ONE, version);
+                int id = (int) airdrop.call("lastId");
+
+                StringWriter out = new StringWriter();
+                assertEquals(1001, tree.writeProofs(new BufferedReader(new StringReader(rows)), out, pool, 64));
+                String[] lines = out.toString().split("\n");
+                assertEquals(Csv.PROOF_HEADER, lines[0]);
+                for (int i = 1; i < lines.length; i++) {
+                    String[] f = lines[i].split(",", -1);
+                    int index = Integer.parseInt(f[0]);
+                    Address address = Address.fromString(f[1]);
+                    BigInteger amount = new BigInteger(f[2]);
+                    byte[][] proof = Csv.parseProof(f[3]);
+                    assertEquals(i - 1, index);
+                    assertArrayEquals(tree.proof(index), proof);
+                    if (index % 7 == 0) {
+                        assertTrue((boolean) airdrop.call("isClaimable", id, address, amount, proof, index));
+                        assertFalse((boolean) airdrop.call("isClaimable", id, address, amount.add(BigInteger.ONE), proof, index));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void shards() throws Exception {
+        Path dir = Files.createTempDirectory("shards");
+        Path input = dir.resolve("rows.csv");
+        Files.writeString(input, rows(1000, 11), StandardCharsets.UTF_8);
+        int[] counts = Shards.split(input, 3, dir);
+        assertEquals(8, counts.length);
+
+        byte[][] roots = new byte[counts.length][];
+        MerkleTree[] trees = new MerkleTree[counts.length];
+        int total = 0;
+        for (int shard = 0; shard < counts.length; shard++) {
+            assertTrue(counts[shard] > 0);
+            try (BufferedReader in = Files.newBufferedReader(Shards.shardFile(dir, shard))) {
+                trees[shard] = new MerkleTreeBuilder(Leaf.V3, pool, dir, 64).build(in);
+            }
+            roots[shard] = trees[shard].root();
+            total += counts[shard];
+        }
+        assertEquals(1000, total);
+        airdrop.invoke(owner, "addShardedAirdrop", ZERO_ADDRESS, roots, sm.getBlock().getTimestamp(), 0L,
+                BigInteger.ONE, Leaf.V3);
+        int id = (int) airdrop.call("lastId");
+
+        boolean[] indexes = new boolean[1000];
+        for (int shard = 0; shard < counts.length; shard++) {
+            StringWriter out = new StringWriter();
+            try (BufferedReader in = Files.newBufferedReader(Shards.shardFile(dir, shard)); MerkleTree tree = trees[shard]) {
+                assertEquals(counts[shard], tree.writeProofs(in, out, pool, 64));
+            }
+            String[] lines = out.toString().split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                String[] f = lines[i].split(",", -1);
+                int index = Integer.parseInt(f[0]);
+                Address address = Address.fromString(f[1]);
+                assertFalse(indexes[index]);
+                indexes[index] = true;
+                assertEquals(shard, Shards.shardOf(f[1], 3));
+                assertEquals(shard, (int) airdrop.call("shardOf", id, address));
+                assertTrue((boolean) airdrop.call("isClaimable", id, address, new BigInteger(f[2]), Csv.parseProof(f[3]), index));
+            }
+        }
+    }
+
+    @Test
+    void sameRootForBlockSizes() throws Exception {
+        String rows = rows(777, 100);
+        try (MerkleTree a = build(Leaf.V2, rows, 1); MerkleTree b = build(Leaf.V2, rows, 10_000)) {
+            assertArrayEquals(a.root(), b.root());
+            assertEquals(10, a.depth());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.havah.merkle.builder;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import io.havah.contract.MerkleAirdrop;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import score.Address;
+
+import java.io.BufferedReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProofStoreTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final Address ZERO_ADDRESS = Address.fromString("hx0000000000000000000000000000000000000000");
+    private static Score airdrop;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        airdrop = sm.deploy(owner, MerkleAirdrop.class, "test");
+    }
+
+    @Test
+    void lookup() throws Exception {
+        int count = 3001;
+        Random random = new Random(20);
+        String[] addresses = new String[count];
+        BigInteger[] amounts = new BigInteger[count];
+        StringBuilder sb = new StringBuilder(Csv.ROW_HEADER).append('\n');
+        for (int i = 0; i < count; i++) {
+            // some addresses have more than one row
+            addresses[i] = i % 100 == 99 ? addresses[i - 50]
+                    : (i % 10 == 9 ? "cx" : "hx") + String.format("%040x", new BigInteger(160, random));
+            amounts[i] = new BigInteger(1 + random.nextInt(255), random);
+            sb.append(addresses[i]).append(',').append(amounts[i]).append('\n');
+        }
+        Path rows = Files.createTempFile("rows", ".csv");
+        Path file = Files.createTempFile("proofs", ".bin");
+        try {
+            Files.writeString(rows, sb, StandardCharsets.UTF_8);
+            try (BufferedReader in = Files.newBufferedReader(rows);
+                 MerkleTree tree = new MerkleTreeBuilder(Leaf.V3, ForkJoinPool.commonPool(), null, 500).build(in)) {
+                ProofStore.write(tree, rows, file);
+                airdrop.invoke(owner, "addAirdrop", ZERO_ADDRESS, tree.root(), sm.getBlock().getTimestamp(), 0L,
+                        BigInteger.ONE, Leaf.V3);
+
+                try (ProofStore store = ProofStore.open(file)) {
+                    assertEquals(count, store.size());
+                    assertEquals(Leaf.V3, store.getLeafVersion());
+                    assertArrayEquals(tree.root(), store.root());
+                    int id = (int) airdrop.call("lastId");
+                    for (int i = 0; i < count; i++) {
+                        int entry = store.find(Address.fromString(addresses[i]).toByteArray());
+                        while (store.index(entry) != i) {
+                            entry++;
+                            assertEquals(addresses[i], store.address(entry));
+                        }
+                        assertEquals(amounts[i], store.amount(entry));
+                        byte[][] proof = store.proof(entry);
+                        assertArrayEquals(tree.proof(i), proof);
+                        if (i % 11 == 0) {
+                            assertTrue((boolean) airdrop.call("isClaimable", id, Address.fromString(addresses[i]),
+                                    amounts[i], proof, i));
+                        }
+                    }
+                    assertEquals(-1, store.find("hx0000000000000000000000000000000000000001"));
+                    assertEquals(-1, store.find("cx" + addresses[0].substring(2)));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(rows);
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.havah.vesting.calculator;
+
+import java.math.BigInteger;
+
+/**
+ * An account of a vesting and its vested amount at the time of the calculation.
+ */
+public class AccountState {
+    private final int id;
+    private final String address;
+    private final BigInteger total;
+    private final BigInteger claimed;
+    private BigInteger vested;
+
+    public AccountState(int id, String address, BigInteger total, BigInteger claimed) {
+        this.id = id;
+        this.address = address;
+        this.total = total;
+        this.claimed = claimed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public BigInteger getTotal() {
+        return total;
+    }
+
+    public BigInteger getClaimed() {
+        return claimed;
+    }
+
+    public BigInteger getVested() {
+        return vested;
+    }
+
+    void setVested(BigInteger vested) {
+        this.vested = vested;
+    }
+
+    /**
+     * Returns the claimable amount in the same way as Vesting.claimableAmount().
+     */
+    public BigInteger getClaimable() {
+        if (vested == null || vested.compareTo(claimed) <= 0)
+            return BigInteger.ZERO;
+        return vested.subtract(claimed);
+    }
+}
@@ -0,0 +1,87 @@
+package io.havah.vesting.calculator;
+
+import io.havah.contract.VestingCurve;
+import io.havah.contract.VestingSchedule;
+import io.havah.contract.VestingScheduleType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * CSV formats of the calculator. Times are in microseconds as the contract.
+ * <pre>
+ * schedules : id,type,startTime,endTime,timeInterval,month,day,weekday,hour,cliffTime,cliffRate,curve
+ * accounts  : id,address,total,claimed
+ * output    : id,address,total,vested,claimed,claimable
+ * </pre>
+ * The curve of Custom type is the list of time:rate separated by ';', other types leave it empty.
+ */
+public class Csv {
+    public static final String SCHEDULE_HEADER = "id,type,startTime,endTime,timeInterval,month,day,weekday,hour,cliffTime,cliffRate,curve";
+    public static final String ACCOUNT_HEADER = "id,address,total,claimed";
+    public static final String ACCOUNT_STATE_HEADER = "id,address,total,vested,claimed,claimable";
+
+    static boolean isSkipped(String line, String header) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.equals(header);
+    }
+
+    /**
+     * Reads schedules and curves of Custom type from the CSV reader.
+     */
+    public static void readSchedules(BufferedReader in, Map<Integer, VestingSchedule> schedules, Map<Integer, byte[]> curves)
+            throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (isSkipped(line, SCHEDULE_HEADER))
+                continue;
+            String[] f = line.split(",", -1);
+            if (f.length != 12)
+                throw new IllegalArgumentException("invalid schedule : " + line);
+
+            int id = Integer.parseInt(f[0].trim());
+            VestingSchedule schedule = new VestingSchedule();
+            schedule.setType(VestingScheduleType.valueOf(f[1].trim()));
+            schedule.setStartTime(Long.parseLong(f[2].trim()));
+            schedule.setEndTime(Long.parseLong(f[3].trim()));
+            schedule.setTimeInterval(Long.parseLong(f[4].trim()));
+            schedule.setMonth(Integer.parseInt(f[5].trim()));
+            schedule.setDay(Integer.parseInt(f[6].trim()));
+            schedule.setWeekday(Integer.parseInt(f[7].trim()));
+            schedule.setHour(Integer.parseInt(f[8].trim()));
+            schedule.setCliffTime(f[9].isBlank() ? 0 : Long.parseLong(f[9].trim()));
+            schedule.setCliffRate(f[10].isBlank() ? 0 : Integer.parseInt(f[10].trim()));
+            schedules.put(id, schedule);
+
+            if (schedule.getType() == VestingScheduleType.Custom)
+                curves.put(id, parseCurve(schedule.getStartTime(), f[11].trim()));
+        }
+    }
+
+    static byte[] parseCurve(long startTime, String value) {
+        String[] entries = value.split(";");
+        long[] times = new long[entries.length];
+        int[] rates = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] entry = entries[i].split(":");
+            times[i] = Long.parseLong(entry[0].trim());
+            rates[i] = Integer.parseInt(entry[1].trim());
+        }
+        return VestingCurve.encode(startTime, times, rates);
+    }
+
+    static AccountState parseAccount(String line) {
+        String[] f = line.split(",", -1);
+        if (f.length != 4)
+            throw new IllegalArgumentException("invalid account : " + line);
+        return new AccountState(Integer.parseInt(f[0].trim()), f[1].trim(),
+                new BigInteger(f[2].trim()), f[3].isBlank() ? BigInteger.ZERO : new BigInteger(f[3].trim()));
+    }
+
+    static String formatAccountState(AccountState a) {
+        return a.getId() + "," + a.getAddress() + "," + a.getTotal() + "," + a.getVested() + ","
+                + a.getClaimed() + "," + a.getClaimable();
+    }
+}
@@ -0,0 +1,66 @@
+package io.havah.vesting.calculator;
+
+import io.havah.contract.VestingSchedule;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line interface of the calculator.
+ * <pre>
+ * --schedules &lt;file&gt; --accounts &lt;file&gt; --time &lt;microseconds&gt; [--out &lt;file&gt;] [--parallelism &lt;n&gt;] [--block &lt;n&gt;]
+ * </pre>
+ * The output is written to the standard output if --out is not given.
+ */
+public class Main {
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--"))
+                usage();
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("schedules") || !options.containsKey("accounts"))
+            usage();
+
+        long time = options.containsKey("time") ? Long.parseLong(options.get("time"))
+                : System.currentTimeMillis() * 1000L;
+        int parallelism = options.containsKey("parallelism") ? Integer.parseInt(options.get("parallelism"))
+                : Runtime.getRuntime().availableProcessors();
+        int blockSize = options.containsKey("block") ? Integer.parseInt(options.get("block"))
+                : VestingCalculator.DEFAULT_BLOCK_SIZE;
+
+        Map<Integer, VestingSchedule> schedules = new HashMap<>();
+        Map<Integer, byte[]> curves = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(Path.of(options.get("schedules")), StandardCharsets.UTF_8)) {
+            Csv.readSchedules(in, schedules, curves);
+        }
+
+        VestingCalculator calculator = new VestingCalculator(schedules, curves);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (BufferedReader in = Files.newBufferedReader(Path.of(options.get("accounts")), StandardCharsets.UTF_8);
+             Writer out = options.containsKey("out")
+                     ? Files.newBufferedWriter(Path.of(options.get("out")), StandardCharsets.UTF_8)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            long count = calculator.calculate(in, out, time, pool, blockSize);
+            System.err.println(count + " accounts of " + schedules.size() + " schedules at " + time);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static void usage() {
+        System.err.println("usage: --schedules <file> --accounts <file> [--time <microseconds>] [--out <file>]"
+                + " [--parallelism <n>] [--block <n>]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,134 @@
+package io.havah.vesting.calculator;
+
+import io.havah.contract.VestingSchedule;
+import io.havah.contract.VestingScheduleType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes vested amounts of vesting accounts off-chain.
+ * The vested fraction of each schedule is computed once by VestingScheduleType.vestedRatio() which is used by
+ * the contract as well, and the amounts of the accounts are computed from it in parallel.
+ */
+public class VestingCalculator {
+    static final int THRESHOLD = 4096;
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    private final Map<Integer, VestingSchedule> schedules;
+    private final Map<Integer, byte[]> curves;
+
+    public VestingCalculator(Map<Integer, VestingSchedule> schedules, Map<Integer, byte[]> curves) {
+        this.schedules = schedules;
+        this.curves = curves;
+    }
+
+    public BigInteger[] vestedRatio(int id, long time) {
+        VestingSchedule schedule = schedules.get(id);
+        if (schedule == null)
+            throw new IllegalArgumentException("unknown vesting id " + id);
+        return VestingScheduleType.vestedRatio(schedule, curves.get(id), time);
+    }
+
+    /**
+     * Returns the vested fractions of all schedules at the given time.
+     */
+    public Map<Integer, BigInteger[]> vestedRatios(long time) {
+        Map<Integer, BigInteger[]> ratios = new HashMap<>();
+        for (Integer id : schedules.keySet()) {
+            ratios.put(id, vestedRatio(id, time));
+        }
+        return ratios;
+    }
+
+    public BigInteger vestedAmount(int id, BigInteger total, long time) {
+        return VestingScheduleType.vestedAmount(vestedRatio(id, time), total);
+    }
+
+    /**
+     * Sets the vested amounts of the accounts at the given time.
+     */
+    public void calculate(List<AccountState> accounts, long time, ForkJoinPool pool) {
+        calculate(accounts, vestedRatios(time), pool);
+    }
+
+    void calculate(List<AccountState> accounts, Map<Integer, BigInteger[]> ratios, ForkJoinPool pool) {
+        pool.invoke(new Task(accounts, ratios, 0, accounts.size()));
+    }
+
+    /**
+     * Reads accounts from the CSV reader and writes their states to the CSV writer in the same order.
+     * Accounts are processed by blocks, so the memory doesn't grow with the number of accounts.
+     * Returns the number of accounts.
+     */
+    public long calculate(BufferedReader in, Writer out, long time, ForkJoinPool pool, int blockSize) throws IOException {
+        Map<Integer, BigInteger[]> ratios = vestedRatios(time);
+        out.write(Csv.ACCOUNT_STATE_HEADER);
+        out.write('\n');
+
+        long count = 0;
+        List<AccountState> block = new ArrayList<>(blockSize);
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (Csv.isSkipped(line, Csv.ACCOUNT_HEADER))
+                continue;
+            block.add(Csv.parseAccount(line));
+            if (block.size() == blockSize) {
+                count += flush(block, ratios, pool, out);
+            }
+        }
+        count += flush(block, ratios, pool, out);
+        out.flush();
+        return count;
+    }
+
+    private int flush(List<AccountState> block, Map<Integer, BigInteger[]> ratios, ForkJoinPool pool, Writer out)
+            throws IOException {
+        int size = block.size();
+        calculate(block, ratios, pool);
+        for (AccountState account : block) {
+            out.write(Csv.formatAccountState(account));
+            out.write('\n');
+        }
+        block.clear();
+        return size;
+    }
+
+    static class Task extends RecursiveAction {
+        private final List<AccountState> accounts;
+        private final Map<Integer, BigInteger[]> ratios;
+        private final int from;
+        private final int to;
+
+        Task(List<AccountState> accounts, Map<Integer, BigInteger[]> ratios, int from, int to) {
+            this.accounts = accounts;
+            this.ratios = ratios;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    AccountState account = accounts.get(i);
+                    BigInteger[] ratio = ratios.get(account.getId());
+                    if (ratio == null)
+                        throw new IllegalArgumentException("unknown vesting id " + account.getId());
+                    account.setVested(VestingScheduleType.vestedAmount(ratio, account.getTotal()));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Task(accounts, ratios, from, mid), new Task(accounts, ratios, mid, to));
+        }
+    }
+}
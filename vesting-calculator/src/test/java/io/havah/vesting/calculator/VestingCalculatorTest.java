@@ -0,0 +1,158 @@
+package io.havah.vesting.calculator;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import io.havah.contract.AccountInfo;
+import io.havah.contract.Datetime;
+import io.havah.contract.Vesting;
+import io.havah.contract.VestingCurve;
+import io.havah.contract.VestingSchedule;
+import io.havah.contract.VestingScheduleType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import score.Address;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VestingCalculatorTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final Address token = Address.fromString("cx0000000000000000000000000000000000000000");
+    private static final long DAY = Datetime.ONE_DAY;
+    private static final List<Account> accounts = new ArrayList<>();
+    private static Score vesting;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        vesting = sm.deploy(owner, Vesting.class, "test");
+        for (int i = 0; i < 3; i++) {
+            accounts.add(sm.createAccount());
+        }
+    }
+
+    private static AccountInfo[] accountInfos(long seed) {
+        AccountInfo[] infos = new AccountInfo[accounts.size()];
+        for (int i = 0; i < infos.length; i++) {
+            infos[i] = new AccountInfo();
+            infos[i].setAddress(accounts.get(i).getAddress());
+            infos[i].setTotalAmount(BigInteger.TEN.pow(18).multiply(BigInteger.valueOf(seed * 7 + i * 13 + 1))
+                    .add(BigInteger.valueOf(seed)));
+        }
+        return infos;
+    }
+
+    // reads the schedule back from the contract as the back office would do
+    private static VestingSchedule readSchedule(int id) {
+        Map info = (Map) vesting.call("info", id);
+        Map cliff = (Map) vesting.call("cliffInfo", id);
+        VestingSchedule schedule = new VestingSchedule();
+        schedule.setType(VestingScheduleType.valueOf((String) info.get("type")));
+        schedule.setStartTime((long) info.get("startTime"));
+        schedule.setEndTime((long) info.get("endTime"));
+        schedule.setTimeInterval((long) info.get("timeInterval"));
+        schedule.setMonth((int) info.get("month"));
+        schedule.setDay((int) info.get("day"));
+        schedule.setWeekday((int) info.get("weekday"));
+        schedule.setHour((int) info.get("hour"));
+        if (!cliff.isEmpty()) {
+            schedule.setCliffTime((long) cliff.get("cliffTime"));
+            schedule.setCliffRate((int) cliff.get("cliffRate"));
+        }
+        return schedule;
+    }
+
+    private static byte[] readCurve(int id, long startTime) {
+        List times = (List) vesting.call("vestingTimes", id, 0L, 0L);
+        List rates = (List) vesting.call("vestingRates", id);
+        long[] t = new long[times.size()];
+        int[] r = new int[rates.size()];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (long) times.get(i);
+            r[i] = (int) rates.get(i);
+        }
+        return VestingCurve.encode(startTime, t, r);
+    }
+
+    @Test
+    void conformance() {
+        long now = sm.getBlock().getTimestamp();
+        long start = now - 400 * DAY - 12_345_678L;
+        long end = now + 500 * DAY + 7_654_321L;
+        long cliff = now - 30 * DAY;
+
+        vesting.invoke(owner, "registerOnetimeVesting", token, now - DAY, accountInfos(1));
+        vesting.invoke(owner, "registerLinearVesting", token, start, end, accountInfos(2));
+        vesting.invoke(owner, "registerPeriodicVesting", token, start, end, 7 * DAY + 3, accountInfos(3));
+        vesting.invoke(owner, "registerDailyVesting", token, start, end, 9, accountInfos(4));
+        vesting.invoke(owner, "registerWeeklyVesting", token, start, end, 2, 23, accountInfos(5));
+        vesting.invoke(owner, "registerMonthlyVesting", token, start, end, 31, 0, accountInfos(6));
+        vesting.invoke(owner, "registerYearlyVesting", token, start - 200 * DAY, end + 800 * DAY, 2, 29, 12, accountInfos(7));
+        vesting.invoke(owner, "registerCustomVesting", token, new long[] { start, now - DAY, end },
+                new int[] { 1234, 5678, 10000 }, accountInfos(8));
+        vesting.invoke(owner, "registerCliffLinearVesting", token, start, cliff, 2500, end, accountInfos(9));
+        vesting.invoke(owner, "registerCliffMonthlyVesting", token, start, cliff, 3333, end, 15, 6, accountInfos(10));
+
+        int lastId = (int) vesting.call("lastId");
+        Map<Integer, VestingSchedule> schedules = new HashMap<>();
+        Map<Integer, byte[]> curves = new HashMap<>();
+        List<AccountState> states = new ArrayList<>();
+        for (int id = 0; id <= lastId; id++) {
+            VestingSchedule schedule = readSchedule(id);
+            schedules.put(id, schedule);
+            if (schedule.getType() == VestingScheduleType.Custom)
+                curves.put(id, readCurve(id, schedule.getStartTime()));
+            for (Account account : accounts) {
+                Map info = (Map) vesting.call("getAccountInfo", id, account.getAddress());
+                states.add(new AccountState(id, account.getAddress().toString(),
+                        (BigInteger) info.get("total"), (BigInteger) info.get("claimed")));
+            }
+        }
+
+        long time = sm.getBlock().getTimestamp();
+        new VestingCalculator(schedules, curves).calculate(states, time, ForkJoinPool.commonPool());
+        for (AccountState state : states) {
+            Address address = Address.fromString(state.getAddress());
+            Map info = (Map) vesting.call("getAccountInfo", state.getId(), address);
+            assertEquals(info.get("vested"), state.getVested(), "vesting " + state.getId());
+            assertEquals(vesting.call("claimableAmount", state.getId(), address), state.getClaimable());
+        }
+    }
+
+    @Test
+    void streamKeepsOrder() throws Exception {
+        VestingSchedule schedule = new VestingSchedule();
+        schedule.setType(VestingScheduleType.Linear);
+        schedule.setStartTime(Datetime.GENESIS_TIMESTAMP + DAY);
+        schedule.setEndTime(Datetime.GENESIS_TIMESTAMP + 101 * DAY);
+        VestingCalculator calculator = new VestingCalculator(Map.of(0, schedule), Map.of());
+
+        StringBuilder in = new StringBuilder(Csv.ACCOUNT_HEADER).append('\n');
+        for (int i = 0; i < 10_000; i++) {
+            in.append("0,hx").append(String.format("%040x", i)).append(',').append(i * 100L).append(",0\n");
+        }
+        StringWriter out = new StringWriter();
+        long count = calculator.calculate(new BufferedReader(new StringReader(in.toString())), out,
+                Datetime.GENESIS_TIMESTAMP + 51 * DAY, new ForkJoinPool(4), 1000);
+
+        assertEquals(10_000, count);
+        String[] lines = out.toString().split("\n");
+        assertEquals(Csv.ACCOUNT_STATE_HEADER, lines[0]);
+        for (int i = 0; i < 10_000; i++) {
+            String[] f = lines[i + 1].split(",");
+            assertEquals(String.format("hx%040x", i), f[1]);
+            assertEquals(BigInteger.valueOf(i * 50L), new BigInteger(f[3]));
+        }
+    }
+}
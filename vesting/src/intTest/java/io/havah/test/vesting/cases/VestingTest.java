@@ -19,16 +19,21 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static foundation.icon.test.Env.LOG;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class VestingTest extends TestBase {
     private static final Address ZERO_ADDRESS = new Address("hx0000000000000000000000000000000000000000");
@@ -65,6 +70,21 @@ public class VestingTest extends TestBase {
         LOG.info("airdrop balanceOf : " + hsp20token.balanceOf(vesting.getAddress()));
     }
 
+    protected byte[] _hash(byte[] a, byte[] b) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("keccak-256");
+        md.update(a);
+        md.update(b);
+        return md.digest();
+    }
+
+    protected byte[] _leafHash(Address address, BigInteger amount) throws NoSuchAlgorithmException {
+        return _hash(address.toString().getBytes(), amount.toString().getBytes());
+    }
+
+    protected byte[] _pairHash(byte[] a, byte[] b) throws NoSuchAlgorithmException {
+        return Arrays.compareUnsigned(a, b) <= 0 ? _hash(a, b) : _hash(b, a);
+    }
+
     protected static BigInteger _getTimestamp() throws IOException {
         Block lastBlk = iconService.getLastBlock().execute();
         return lastBlk.getTimestamp();
@@ -154,6 +174,17 @@ public class VestingTest extends TestBase {
         }
     }
 
+    protected void _registerCustomVesting(VestingScore score, Wallet wallet, Address token, BigInteger[] times,
+                                          BigInteger[] rates, List accounts, boolean success)
+            throws IOException, ResultTimeoutException {
+        TransactionResult result = score.registerCustomVesting(wallet, token, times, rates, accounts);
+        if(success) {
+            assertSuccess(result);
+        } else {
+            assertFailure(result);
+        }
+    }
+
     protected BigInteger _claim(VestingScore score, Wallet wallet, BigInteger id, boolean success) throws IOException, ResultTimeoutException {
         TransactionResult result = score.claim(wallet, id);
         BigInteger claimedAmount = BigInteger.ZERO;
@@ -173,6 +204,42 @@ public class VestingTest extends TestBase {
         return claimedAmount;
     }
 
+    protected Map<Address, BigInteger> _claimMany(VestingScore score, Wallet wallet, BigInteger[] ids, boolean success)
+            throws IOException, ResultTimeoutException {
+        TransactionResult result = score.claimMany(wallet, ids);
+        Map<Address, BigInteger> claimedAmounts = new HashMap<>();
+        for(TransactionResult.EventLog log : result.getEventLogs()) {
+            if(log.getIndexed().get(0).asString().equals("ClaimedMany(Address,Address,int,int)")) {
+                claimedAmounts.put(log.getData().get(0).asAddress(), log.getData().get(2).asInteger());
+            }
+        }
+        if(success) {
+            assertSuccess(result);
+        } else {
+            assertFailure(result);
+        }
+
+        return claimedAmounts;
+    }
+
+    protected BigInteger _distribute(VestingScore score, Wallet wallet, BigInteger id, BigInteger fromIndex, BigInteger count,
+                                     boolean success) throws IOException, ResultTimeoutException {
+        TransactionResult result = score.distribute(wallet, id, fromIndex, count);
+        BigInteger nextIndex = fromIndex;
+        for(TransactionResult.EventLog log : result.getEventLogs()) {
+            if(log.getIndexed().get(0).asString().equals("Distributed(int,int,int)")) {
+                nextIndex = log.getData().get(1).asInteger();
+            }
+        }
+        if(success) {
+            assertSuccess(result);
+        } else {
+            assertFailure(result);
+        }
+
+        return nextIndex;
+    }
+
     protected void _addVestingAccounts(VestingScore score, Wallet wallet, BigInteger id, List accounts, boolean success) throws IOException, ResultTimeoutException {
         TransactionResult result = score.addVestingAccounts(wallet, id, accounts);
         if(success) {
@@ -284,6 +351,43 @@ public class VestingTest extends TestBase {
         LOG.infoExiting();
     }
 
+    @Test
+    void registerCliffLinearVestingTest() throws Exception {
+        LOG.infoEntering("vesting", "registerCliffLinearVestingTest");
+
+        BigInteger time = _getTimestamp();
+        BigInteger startTime = time;
+        BigInteger cliffTime = time.add(BigInteger.valueOf(10 * 1_000_000L));
+        BigInteger endTime = time.add(BigInteger.valueOf(30 * 1_000_000L));
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(4));
+
+        List account = new ArrayList();
+        account.add(Map.of(
+                "address", owners[0].getAddress(),
+                "totalAmount", amount
+        ));
+        assertFailure(vesting.registerCliffLinearVesting(govWallet, hsp20token.getAddress(), startTime, endTime,
+                BigInteger.valueOf(2500), endTime, account));
+        assertSuccess(vesting.registerCliffLinearVesting(govWallet, hsp20token.getAddress(), startTime, cliffTime,
+                BigInteger.valueOf(2500), endTime, account));
+
+        BigInteger id = vesting.lastId();
+        assertEquals(BigInteger.ZERO, vesting.claimableAmount(id, owners[0].getAddress()));
+
+        _waitUtilTime(cliffTime);
+        BigInteger claimable = vesting.claimableAmount(id, owners[0].getAddress());
+        LOG.info("claimableAmount : " + claimable);
+        assertTrue(claimable.compareTo(amount.divide(BigInteger.valueOf(4))) >= 0);
+
+        _claim(vesting, owners[0], id, true);
+
+        _waitUtilTime(endTime.add(BigInteger.valueOf(1_000_000L)));
+        _claim(vesting, owners[0], id, true);
+        assertEquals(BigInteger.ZERO, vesting.claimableAmount(id, owners[0].getAddress()));
+
+        LOG.infoExiting();
+    }
+
     @Test
     void registerPeriodicVestingTest() throws Exception {
         LOG.infoEntering("vesting", "registerPeriodicVestingTest");
@@ -459,6 +563,292 @@ public class VestingTest extends TestBase {
         LOG.infoExiting();
     }
 
+    @Test
+    void registerCustomVestingTest() throws Exception {
+        LOG.infoEntering("vesting", "registerCustomVestingTest");
+
+        BigInteger time = _getTimestamp();
+        BigInteger[] times = new BigInteger[] {
+                time.add(BigInteger.valueOf(5 * 1_000_000L)),
+                time.add(BigInteger.valueOf(10 * 1_000_000L)),
+                time.add(BigInteger.valueOf(20 * 1_000_000L))
+        };
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(2));
+
+        List account = new ArrayList();
+        account.add(Map.of(
+                "address", owners[0].getAddress(),
+                "totalAmount", amount
+        ));
+
+        BigInteger[] rates = new BigInteger[] {BigInteger.valueOf(1000), BigInteger.valueOf(3500), BigInteger.valueOf(9000)};
+        _registerCustomVesting(vesting, govWallet, ZERO_ADDRESS, times, rates, account, false);
+
+        rates[2] = BigInteger.valueOf(10000);
+        _registerCustomVesting(vesting, govWallet, ZERO_ADDRESS, times, rates, account, true);
+
+        BigInteger id = vesting.lastId();
+        _logHumanReadableRewardInfo(vesting, id);
+
+        _waitUtilTime(times[1]);
+        BigInteger claimable = vesting.claimableAmount(id, owners[0].getAddress());
+        LOG.info("claimableAmount : " + claimable);
+        assertEquals(amount.multiply(rates[1]).divide(BigInteger.valueOf(10000)), claimable);
+        _claim(vesting, owners[0], id, true);
+
+        _waitUtilTime(times[2]);
+        BigInteger claimed = _claim(vesting, owners[0], id, true);
+        assertEquals(amount.subtract(claimable), claimed);
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void claimManyTest() throws Exception {
+        LOG.infoEntering("vesting", "claimManyTest");
+
+        BigInteger time = _getTimestamp();
+        BigInteger startTime = time.add(BigInteger.valueOf(5 * 1_000_000L));
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+
+        List account = new ArrayList();
+        account.add(Map.of(
+                "address", owners[2].getAddress(),
+                "totalAmount", amount
+        ));
+
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, account, true);
+        BigInteger id0 = vesting.lastId();
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, account, true);
+        BigInteger id1 = vesting.lastId();
+        _registerOnetimeVesting(vesting, govWallet, hsp20token.getAddress(), startTime, account, true);
+        BigInteger id2 = vesting.lastId();
+        BigInteger[] ids = new BigInteger[] {id0, id1, id2};
+
+        _claimMany(vesting, owners[2], ids, false);
+
+        _waitUtilTime(startTime);
+        Map<Address, BigInteger> claimed = _claimMany(vesting, owners[2], ids, true);
+        LOG.info("claimed : " + claimed);
+        assertEquals(amount.multiply(BigInteger.TWO), claimed.get(ZERO_ADDRESS));
+        assertEquals(amount, claimed.get(hsp20token.getAddress()));
+
+        _claimMany(vesting, owners[2], ids, false);
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void registrationSessionTest() throws Exception {
+        LOG.infoEntering("vesting", "registrationSessionTest");
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, new ArrayList(), true);
+        BigInteger id = vesting.lastId();
+
+        assertSuccess(vesting.openRegistration(govWallet, id));
+        assertFailure(vesting.openRegistration(govWallet, id));
+
+        // chunks can be appended in any order
+        assertSuccess(vesting.appendVestingAccounts(govWallet, id, List.of(Map.of(
+                "address", owners[4].getAddress(),
+                "totalAmount", amount
+        ))));
+        assertSuccess(vesting.appendVestingAccounts(govWallet, id, List.of(Map.of(
+                "address", owners[3].getAddress(),
+                "totalAmount", amount
+        ))));
+        assertFailure(vesting.appendVestingAccounts(govWallet, id, List.of(Map.of(
+                "address", owners[3].getAddress(),
+                "totalAmount", amount
+        ))));
+
+        _claim(vesting, owners[3], id, false);
+
+        assertFailure(vesting.sealRegistration(govWallet, id, BigInteger.ONE, amount));
+        assertSuccess(vesting.sealRegistration(govWallet, id, BigInteger.TWO, amount.multiply(BigInteger.TWO)));
+        assertFailure(vesting.appendVestingAccounts(govWallet, id, List.of(Map.of(
+                "address", owners[2].getAddress(),
+                "totalAmount", amount
+        ))));
+
+        BigInteger claimed = _claim(vesting, owners[3], id, true);
+        assertEquals(amount, claimed);
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void merkleVestingTest() throws Exception {
+        LOG.infoEntering("vesting", "merkleVestingTest");
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger amount0 = ICX.multiply(BigInteger.valueOf(1));
+        BigInteger amount1 = ICX.multiply(BigInteger.valueOf(2));
+
+        byte[] leaf0 = _leafHash(owners[0].getAddress(), amount0);
+        byte[] leaf1 = _leafHash(owners[1].getAddress(), amount1);
+        byte[] root = _pairHash(leaf0, leaf1);
+
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, new ArrayList(), true);
+        BigInteger id = vesting.lastId();
+        assertSuccess(vesting.setMerkleRoot(govWallet, id, root, amount0.add(amount1)));
+        assertFailure(vesting.setMerkleRoot(govWallet, id, root, amount0.add(amount1)));
+
+        _claim(vesting, owners[0], id, false);
+        assertFailure(vesting.claimWithProof(owners[0], id, amount1, new byte[][] {leaf1}));
+        assertSuccess(vesting.claimWithProof(owners[0], id, amount0, new byte[][] {leaf1}));
+        LOG.info("info : " + vesting.info(id));
+        assertEquals(BigInteger.ONE, vesting.accountCount(id));
+
+        // the account was registered by the first claim
+        _claim(vesting, owners[0], id, false);
+
+        _removeVestingAccounts(vesting, govWallet, id, new Address[] { owners[1].getAddress()}, true);
+        assertFailure(vesting.claimWithProof(owners[1], id, amount1, new byte[][] {leaf0}));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void getAccountStatesTest() throws Exception {
+        LOG.infoEntering("vesting", "getAccountStatesTest");
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+
+        List accounts = new ArrayList();
+        for(int i=0; i<3; i++) {
+            accounts.add(Map.of(
+                    "address", owners[i].getAddress(),
+                    "totalAmount", amount.multiply(BigInteger.valueOf(i + 1))
+            ));
+        }
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, accounts, true);
+        BigInteger id = vesting.lastId();
+        _claim(vesting, owners[1], id, true);
+
+        List page0 = vesting.getAccountStates(id, BigInteger.ZERO, BigInteger.TWO);
+        List page1 = vesting.getAccountStates(id, BigInteger.TWO, BigInteger.TWO);
+        LOG.info("page0 : " + page0);
+        LOG.info("page1 : " + page1);
+        assertEquals(2, page0.size());
+        assertEquals(1, page1.size());
+
+        Map state = (Map) page0.get(1);
+        assertEquals(owners[1].getAddress(), state.get("address"));
+        assertEquals(amount.multiply(BigInteger.TWO), state.get("claimed"));
+        assertEquals(BigInteger.ZERO, state.get("claimable"));
+        state = (Map) page1.get(0);
+        assertEquals(amount.multiply(BigInteger.valueOf(3)), state.get("vested"));
+        assertEquals(state.get("vested"), state.get("claimable"));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void distributeTest() throws Exception {
+        LOG.infoEntering("vesting", "distributeTest");
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+
+        List accounts = new ArrayList();
+        for(int i=0; i<3; i++) {
+            accounts.add(Map.of(
+                    "address", owners[i].getAddress(),
+                    "totalAmount", amount
+            ));
+        }
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, accounts, true);
+        BigInteger id = vesting.lastId();
+
+        _distribute(vesting, owners[4], id, BigInteger.ZERO, BigInteger.TWO, false);
+        assertSuccess(vesting.setKeeper(govWallet, owners[4].getAddress()));
+
+        BigInteger next = _distribute(vesting, owners[4], id, BigInteger.ZERO, BigInteger.TWO, true);
+        assertEquals(BigInteger.TWO, next);
+        assertEquals(BigInteger.ZERO, vesting.claimableAmount(id, owners[1].getAddress()));
+        assertEquals(amount, vesting.claimableAmount(id, owners[2].getAddress()));
+
+        next = _distribute(vesting, owners[4], id, next, BigInteger.TWO, true);
+        assertEquals(BigInteger.valueOf(3), next);
+        assertEquals(amount.multiply(BigInteger.valueOf(3)), vesting.info(id).get("totalClaimed"));
+        _claim(vesting, owners[2], id, false);
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void liabilityTest() throws Exception {
+        LOG.infoEntering("vesting", "liabilityTest");
+
+        BigInteger startTime = _getTimestamp().add(BigInteger.valueOf(5 * 1_000_000L));
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+
+        List accounts = new ArrayList();
+        for(int i=0; i<3; i++) {
+            accounts.add(Map.of(
+                    "address", owners[i].getAddress(),
+                    "totalAmount", amount
+            ));
+        }
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, accounts, true);
+        BigInteger id = vesting.lastId();
+
+        Map liability = vesting.liability(id);
+        assertEquals(amount.multiply(BigInteger.valueOf(3)), liability.get("locked"));
+        assertEquals(BigInteger.ZERO, liability.get("vestedUnclaimed"));
+
+        _waitUtilTime(startTime);
+        _claim(vesting, owners[0], id, true);
+        _removeVestingAccounts(vesting, govWallet, id, new Address[] { owners[0].getAddress(), owners[1].getAddress() }, true);
+
+        liability = vesting.liability(id);
+        LOG.info("liability : " + liability);
+        assertEquals(amount, liability.get("total"));
+        assertEquals(BigInteger.ZERO, liability.get("claimed"));
+        assertEquals(amount, liability.get("vestedUnclaimed"));
+        assertEquals(BigInteger.ZERO, liability.get("locked"));
+
+        LOG.infoExiting();
+    }
+
+    @Test
+    void portfolioTest() throws Exception {
+        LOG.infoEntering("vesting", "portfolioTest");
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(1));
+        Address address = owners[3].getAddress();
+
+        List accounts = new ArrayList();
+        accounts.add(Map.of(
+                "address", address,
+                "totalAmount", amount
+        ));
+        BigInteger count = vesting.portfolioCount(address);
+        _registerOnetimeVesting(vesting, govWallet, ZERO_ADDRESS, startTime, accounts, true);
+        BigInteger id0 = vesting.lastId();
+        _registerOnetimeVesting(vesting, govWallet, hsp20token.getAddress(), startTime, accounts, true);
+        BigInteger id1 = vesting.lastId();
+        assertEquals(count.add(BigInteger.TWO), vesting.portfolioCount(address));
+
+        _removeVestingAccounts(vesting, govWallet, id0, new Address[] { address }, true);
+        assertEquals(count.add(BigInteger.ONE), vesting.portfolioCount(address));
+
+        List list = vesting.portfolio(address, BigInteger.ZERO, vesting.portfolioCount(address));
+        LOG.info("portfolio : " + list);
+        Map state = (Map) list.get(list.size() - 1);
+        assertEquals(id1, state.get("id"));
+        assertEquals(hsp20token.getAddress(), state.get("token"));
+        assertEquals(amount, state.get("claimable"));
+
+        LOG.infoExiting();
+    }
+
     @Test
     void addRemoveAccountsTest() throws Exception {
         LOG.infoEntering("vesting", "removeAccountsTest");
@@ -516,4 +906,47 @@ public class VestingTest extends TestBase {
 
         LOG.infoExiting();
     }
+
+    @Test
+    void scheduleEncodingStepTest() throws Exception {
+        LOG.infoEntering("vesting", "scheduleEncodingStepTest");
+
+        VestingScore score = VestingScore.mustDeployLegacy(txHandler, govWallet);
+        BigInteger amount = ICX.multiply(BigInteger.valueOf(10));
+        assertSuccess(hsp20token.transfer(govWallet, score.getAddress(), amount.multiply(BigInteger.TWO)));
+
+        BigInteger startTime = _getTimestamp();
+        BigInteger endTime = startTime.add(BigInteger.valueOf(60 * 1_000_000L));
+        List account = new ArrayList();
+        account.add(Map.of(
+                "address", owners[0].getAddress(),
+                "totalAmount", amount
+        ));
+        _registerLinearVesting(score, govWallet, hsp20token.getAddress(), startTime, endTime, account, true);
+        BigInteger legacyId = score.lastId();
+
+        LOG.info(">>> update, the schedule registered before is kept in the old list format");
+        score.mustUpdate(txHandler, govWallet);
+        _registerLinearVesting(score, govWallet, hsp20token.getAddress(), startTime, endTime, account, true);
+        BigInteger compactId = score.lastId();
+        Map legacyInfo = score.info(legacyId);
+        Map compactInfo = score.info(compactId);
+        assertEquals(legacyInfo.get("type"), compactInfo.get("type"));
+        assertEquals(legacyInfo.get("startTime"), compactInfo.get("startTime"));
+        assertEquals(legacyInfo.get("endTime"), compactInfo.get("endTime"));
+
+        // the first claim of the legacy id also moves the account to the packed record, so the second claims are compared
+        assertSuccess(score.claim(owners[0], legacyId));
+        assertSuccess(score.claim(owners[0], compactId));
+        _waitUtilTime(startTime.add(BigInteger.valueOf(30 * 1_000_000L)));
+
+        TransactionResult legacy = score.claim(owners[0], legacyId);
+        assertSuccess(legacy);
+        TransactionResult compact = score.claim(owners[0], compactId);
+        assertSuccess(compact);
+        LOG.info("steps per claim, legacy schedule : " + legacy.getStepUsed() + ", compact schedule : " + compact.getStepUsed());
+        assertTrue(compact.getStepUsed().compareTo(legacy.getStepUsed()) < 0);
+
+        LOG.infoExiting();
+    }
 }
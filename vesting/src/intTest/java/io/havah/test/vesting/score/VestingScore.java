@@ -37,6 +37,31 @@ public class VestingScore  extends Score {
         return new VestingScore(score);
     }
 
+    public static VestingScore mustDeployLegacy(TransactionHandler txHandler, Wallet wallet)
+            throws ResultTimeoutException, TransactionFailureException, IOException {
+        LOG.infoEntering("deploy", "legacy Vesting");
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_name", new RpcValue("Vesting"))
+                .build();
+
+        Score score = txHandler.deploy(wallet, getFilePath("legacy-vesting"), params);
+        LOG.infoExiting("scoreAddr = " + score.getAddress());
+        return new VestingScore(score);
+    }
+
+    public void mustUpdate(TransactionHandler txHandler, Wallet wallet)
+            throws ResultTimeoutException, TransactionFailureException, IOException {
+        LOG.infoEntering("update", "Vesting");
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_name", new RpcValue("Vesting"))
+                .build();
+
+        Score score = txHandler.deploy(wallet, getFilePath("vesting"), getAddress(), params, null);
+        LOG.infoExiting("scoreAddr = " + score.getAddress());
+    }
+
     public BigInteger lastId() throws IOException {
         return call("lastId", null).asInteger();
     }
@@ -97,6 +122,30 @@ public class VestingScore  extends Score {
         return invokeAndWaitResult(wallet, "registerLinearVesting", params);
     }
 
+    public TransactionResult registerCliffLinearVesting(Wallet wallet, Address token, BigInteger startTime, BigInteger cliffTime,
+            BigInteger cliffRate, BigInteger endTime, List accounts) throws IOException, ResultTimeoutException {
+        RpcArray.Builder arr = new RpcArray.Builder();
+        for(int i=0; i<accounts.size(); i++) {
+            Map account = (Map)accounts.get(i);
+            arr.add(new RpcObject.Builder()
+                    .put("address", new RpcValue((Address) account.get("address")))
+                    .put("totalAmount", new RpcValue((BigInteger) account.get("totalAmount")))
+                    .build()
+            );
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_token", new RpcValue(token))
+                .put("_startTime", new RpcValue(startTime))
+                .put("_cliffTime", new RpcValue(cliffTime))
+                .put("_cliffRate", new RpcValue(cliffRate))
+                .put("_endTime", new RpcValue(endTime))
+                .put("_accounts", arr.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "registerCliffLinearVesting", params);
+    }
+
     public TransactionResult registerPeriodicVesting(Wallet wallet, Address token, BigInteger startTime, BigInteger endTime,
             BigInteger timeInterval, List accounts) throws IOException, ResultTimeoutException {
         RpcArray.Builder arr = new RpcArray.Builder();
@@ -222,6 +271,36 @@ public class VestingScore  extends Score {
         return invokeAndWaitResult(wallet, "registerYearlyVesting", params);
     }
 
+    public TransactionResult registerCustomVesting(Wallet wallet, Address token, BigInteger[] times, BigInteger[] rates,
+                                                   List accounts) throws IOException, ResultTimeoutException {
+        RpcArray.Builder arr = new RpcArray.Builder();
+        for(int i=0; i<accounts.size(); i++) {
+            Map account = (Map)accounts.get(i);
+            arr.add(new RpcObject.Builder()
+                    .put("address", new RpcValue((Address) account.get("address")))
+                    .put("totalAmount", new RpcValue((BigInteger) account.get("totalAmount")))
+                    .build()
+            );
+        }
+        RpcArray.Builder timeArr = new RpcArray.Builder();
+        for(BigInteger time : times) {
+            timeArr.add(new RpcValue(time));
+        }
+        RpcArray.Builder rateArr = new RpcArray.Builder();
+        for(BigInteger rate : rates) {
+            rateArr.add(new RpcValue(rate));
+        }
+
+        RpcObject params = new RpcObject.Builder()
+                .put("_token", new RpcValue(token))
+                .put("_times", timeArr.build())
+                .put("_rates", rateArr.build())
+                .put("_accounts", arr.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "registerCustomVesting", params);
+    }
+
     public Map info(BigInteger id) throws IOException {
         RpcObject params = new RpcObject.Builder()
                 .put("_id", new RpcValue(id))
@@ -249,6 +328,58 @@ public class VestingScore  extends Score {
         return invokeAndWaitResult(wallet, "claim", params);
     }
 
+    public TransactionResult claimMany(Wallet wallet, BigInteger[] ids) throws IOException, ResultTimeoutException {
+        RpcArray.Builder arr = new RpcArray.Builder();
+        for(BigInteger id : ids) {
+            arr.add(new RpcValue(id));
+        }
+        RpcObject params = new RpcObject.Builder()
+                .put("_ids", arr.build())
+                .build();
+        return invokeAndWaitResult(wallet, "claimMany", params);
+    }
+
+    public TransactionResult setKeeper(Wallet wallet, Address keeper) throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_keeper", new RpcValue(keeper))
+                .build();
+        return invokeAndWaitResult(wallet, "setKeeper", params);
+    }
+
+    public TransactionResult distribute(Wallet wallet, BigInteger id, BigInteger fromIndex, BigInteger count)
+            throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_fromIndex", new RpcValue(fromIndex))
+                .put("_count", new RpcValue(count))
+                .build();
+        return invokeAndWaitResult(wallet, "distribute", params);
+    }
+
+    public TransactionResult setMerkleRoot(Wallet wallet, BigInteger id, byte[] merkleRoot, BigInteger totalAmount)
+            throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_merkleRoot", new RpcValue(merkleRoot))
+                .put("_totalAmount", new RpcValue(totalAmount))
+                .build();
+        return invokeAndWaitResult(wallet, "setMerkleRoot", params);
+    }
+
+    public TransactionResult claimWithProof(Wallet wallet, BigInteger id, BigInteger totalAmount, byte[][] proof)
+            throws IOException, ResultTimeoutException {
+        RpcArray.Builder arr = new RpcArray.Builder();
+        for(byte[] p : proof) {
+            arr.add(new RpcValue(p));
+        }
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_totalAmount", new RpcValue(totalAmount))
+                .put("_proof", arr.build())
+                .build();
+        return invokeAndWaitResult(wallet, "claimWithProof", params);
+    }
+
     public BigInteger claimableAmount(BigInteger id, Address address) throws IOException {
         RpcObject params = new RpcObject.Builder()
                 .put("_id", new RpcValue(id))
@@ -257,6 +388,80 @@ public class VestingScore  extends Score {
         return call("claimableAmount", params).asInteger();
     }
 
+    public List getAccountStates(BigInteger id, BigInteger offset, BigInteger limit) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_offset", new RpcValue(offset))
+                .put("_limit", new RpcValue(limit))
+                .build();
+
+        List list = new ArrayList();
+        RpcArray arr = call("getAccountStates", params).asArray();
+        for(int i=0; i<arr.size(); i++) {
+            RpcObject obj = arr.get(i).asObject();
+            list.add(Map.of(
+                    "address", obj.getItem("address").asAddress(),
+                    "total", obj.getItem("total").asInteger(),
+                    "vested", obj.getItem("vested").asInteger(),
+                    "claimed", obj.getItem("claimed").asInteger(),
+                    "claimable", obj.getItem("claimable").asInteger()
+            ));
+        }
+        return list;
+    }
+
+    public Map liability(BigInteger id) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .build();
+
+        RpcObject obj = call("liability", params).asObject();
+        return Map.of(
+                "total", obj.getItem("total").asInteger(),
+                "claimed", obj.getItem("claimed").asInteger(),
+                "vested", obj.getItem("vested").asInteger(),
+                "vestedUnclaimed", obj.getItem("vestedUnclaimed").asInteger(),
+                "locked", obj.getItem("locked").asInteger()
+        );
+    }
+
+    public List portfolio(Address address, BigInteger offset, BigInteger limit) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_address", new RpcValue(address))
+                .put("_offset", new RpcValue(offset))
+                .put("_limit", new RpcValue(limit))
+                .build();
+
+        List list = new ArrayList();
+        RpcArray arr = call("portfolio", params).asArray();
+        for(int i=0; i<arr.size(); i++) {
+            RpcObject obj = arr.get(i).asObject();
+            list.add(Map.of(
+                    "id", obj.getItem("id").asInteger(),
+                    "token", obj.getItem("token").asAddress(),
+                    "total", obj.getItem("total").asInteger(),
+                    "vested", obj.getItem("vested").asInteger(),
+                    "claimed", obj.getItem("claimed").asInteger(),
+                    "claimable", obj.getItem("claimable").asInteger()
+            ));
+        }
+        return list;
+    }
+
+    public BigInteger portfolioCount(Address address) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_address", new RpcValue(address))
+                .build();
+        return call("portfolioCount", params).asInteger();
+    }
+
+    public BigInteger accountCount(BigInteger id) throws IOException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .build();
+        return call("accountCount", params).asInteger();
+    }
+
     public TransactionResult addVestingAccounts(Wallet wallet, BigInteger id, List accounts) throws IOException, ResultTimeoutException {
         RpcArray.Builder arr = new RpcArray.Builder();
         for(int i=0; i<accounts.size(); i++) {
@@ -275,6 +480,41 @@ public class VestingScore  extends Score {
         return invokeAndWaitResult(wallet, "addVestingAccounts", params);
     }
 
+    public TransactionResult openRegistration(Wallet wallet, BigInteger id) throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .build();
+        return invokeAndWaitResult(wallet, "openRegistration", params);
+    }
+
+    public TransactionResult appendVestingAccounts(Wallet wallet, BigInteger id, List accounts) throws IOException, ResultTimeoutException {
+        RpcArray.Builder arr = new RpcArray.Builder();
+        for(int i=0; i<accounts.size(); i++) {
+            Map account = (Map)accounts.get(i);
+            arr.add(new RpcObject.Builder()
+                    .put("address", new RpcValue((Address) account.get("address")))
+                    .put("totalAmount", new RpcValue((BigInteger) account.get("totalAmount")))
+                    .build()
+            );
+        }
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_accounts", arr.build())
+                .build();
+
+        return invokeAndWaitResult(wallet, "appendVestingAccounts", params);
+    }
+
+    public TransactionResult sealRegistration(Wallet wallet, BigInteger id, BigInteger accountCount, BigInteger totalAmount)
+            throws IOException, ResultTimeoutException {
+        RpcObject params = new RpcObject.Builder()
+                .put("_id", new RpcValue(id))
+                .put("_accountCount", new RpcValue(accountCount))
+                .put("_totalAmount", new RpcValue(totalAmount))
+                .build();
+        return invokeAndWaitResult(wallet, "sealRegistration", params);
+    }
+
     public TransactionResult removeVestingAccounts(Wallet wallet, BigInteger id, Address[] accounts) throws IOException, ResultTimeoutException {
         RpcArray.Builder arr = new RpcArray.Builder();
         for(int i=0; i<accounts.length; i++) {
@@ -9,21 +9,58 @@ public class Datetime {
     static public final long NORMAL_YEAR = ONE_DAY * 365L;
     static public final long LEAF_YEAR = ONE_DAY * 366L;
 
+    // accumulated days before the 1st day of each month, the last element is the days of the year.
+    static final int[] NORMAL_ACC_DAYS = { 0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365 };
+    static final int[] LEAP_ACC_DAYS = { 0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335, 366 };
+
+    // days of the 400 years cycle of gregorian calendar
+    static final long ERA_DAYS = 146_097L;
+    // days from 0000.03.01 to 1970.01.01
+    static final long EPOCH_SHIFT = 719_468L;
+
     static public boolean isLeapYear(long year) {
         return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
     }
 
+    /**
+     * Returns days from 1970.01.01 of the given date. It's `days_from_civil` of Howard Hinnant.
+     */
+    static public long daysFromCivil(long year, long month, long day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * ERA_DAYS + doe - EPOCH_SHIFT;
+    }
+
+    /**
+     * Returns [year, month, day] of the given days from 1970.01.01. It's `civil_from_days` of Howard Hinnant.
+     */
+    static public long[] civilFromDays(long days) {
+        long z = days + EPOCH_SHIFT;
+        long era = Math.floorDiv(z, ERA_DAYS);
+        long doe = z - era * ERA_DAYS;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return new long[] { year, month, day };
+    }
+
+    static public long[] getDateInfo(long time) {
+        return civilFromDays(Math.floorDiv(Math.max(time, GENESIS_TIMESTAMP), ONE_DAY));
+    }
+
+    static public long getYearStartTime(long year) {
+        return daysFromCivil(year, 1, 1) * ONE_DAY;
+    }
+
     static public long[] getYearInfo(long time) {
-        long year = GENESIS_YEAR;
-        long accTime = GENESIS_TIMESTAMP;
-        while (true) {
-            long temp = accTime + (isLeapYear(year) ? LEAF_YEAR : NORMAL_YEAR);
-            if(temp > time)
-                break;
-            year++;
-            accTime = temp;
-        }
-        return new long[] { year, accTime};
+        long year = getDateInfo(time)[0];
+        return new long[] { year, getYearStartTime(year)};
     }
 
     static public int getWeek(long time) {
@@ -35,17 +72,10 @@ public class Datetime {
     }
 
     static public long[] getMonthlyInfo(long time) {
-        long[] info = getYearInfo(time);
-        long year = info[0];
-        long accTime = info[1];
-        for(int i=1; i<=12; i++) {
-            int day = getMonthDay(year, i);
-            long tmp = accTime + (day * ONE_DAY);
-            if(tmp > time)
-                return new long[] {year, i, accTime};
-            accTime = tmp;
-        }
-        return new long[]{};
+        long[] date = getDateInfo(time);
+        long year = date[0];
+        long month = date[1];
+        return new long[] {year, month, getYearStartTime(year) + getMonthAccTime(year, month - 1)};
     }
 
     static public int getMonthDay(long year, long month) {
@@ -64,11 +94,9 @@ public class Datetime {
     }
 
     static public long getMonthAccTime(long year, long month) {
-        long accTime = 0;
-        for(int i=1; i<=month; i++) {
-            int day = getMonthDay(year, i);
-            accTime += (day * ONE_DAY);
-        }
-        return accTime;
+        if(month <= 0)
+            return 0;
+        int[] accDays = isLeapYear(year) ? LEAP_ACC_DAYS : NORMAL_ACC_DAYS;
+        return accDays[(int) Math.min(month, 12)] * ONE_DAY;
     }
 }
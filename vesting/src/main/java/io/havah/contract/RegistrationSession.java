@@ -0,0 +1,67 @@
+package io.havah.contract;
+
+import score.ObjectReader;
+import score.ObjectWriter;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+public class RegistrationSession {
+    private int accountCount;
+    private BigInteger totalAmount;
+    private int chunkCount;
+
+    public RegistrationSession() {
+        this.totalAmount = BigInteger.ZERO;
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    public void setAccountCount(int accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    public BigInteger getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigInteger totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public static void writeObject(ObjectWriter w, RegistrationSession s) {
+        w.beginList(3);
+        w.write(s.accountCount);
+        w.write(s.totalAmount);
+        w.write(s.chunkCount);
+        w.end();
+    }
+
+    public static RegistrationSession readObject(ObjectReader r) {
+        r.beginList();
+        RegistrationSession s = new RegistrationSession();
+        s.setAccountCount(r.readInt());
+        s.setTotalAmount(r.readBigInteger());
+        s.setChunkCount(r.readInt());
+        r.end();
+        return s;
+    }
+
+    public Map toMap() {
+        return Map.of(
+                "accountCount", accountCount,
+                "totalAmount", totalAmount,
+                "chunkCount", chunkCount
+        );
+    }
+}
@@ -13,19 +13,37 @@ import java.util.Map;
 
 public class Vesting {
     static final Address ZERO_ADDRESS = Address.fromString("hx0000000000000000000000000000000000000000");
+    // the max number of the vesting times in a query
+    protected static final int MAX_QUERY_COUNT = 1024;
 
     protected static final VarDB<String> name = Context.newVarDB("name", String.class);
     protected final DictDB<Integer, BigInteger> totalClaimed = Context.newDictDB("total_claimed", BigInteger.class);
-    protected final BranchDB<Integer, ArrayDB<Long>> vestingTimes = Context.newBranchDB("vesting_times", Long.class);
     protected final DictDB<Integer, BigInteger> totalAmount = Context.newDictDB("total_amount", BigInteger.class);
+    // claimed amounts of the removed accounts, they remain in total_amount and total_claimed
+    protected final DictDB<Integer, BigInteger> removedClaimed = Context.newDictDB("removed_claimed", BigInteger.class);
+    // account_claimed, account_info and accounts_idx_dict are the account layout of the vestings registered before vesting_account
+    protected static final VarDB<Integer> legacyLastId = Context.newVarDB("legacy_last_id", Integer.class);
     protected final BranchDB<Integer, DictDB<Address, BigInteger>> accountClaimed = Context.newBranchDB("account_claimed", BigInteger.class);
     protected final BranchDB<Integer, DictDB<Address, AccountInfo>> accountInfo = Context.newBranchDB("account_info", AccountInfo.class);
-    protected final BranchDB<Integer, DictDB<Integer, Address>> idxAccountDict = Context.newBranchDB("idx_accounts_dict", Address.class);
     protected final BranchDB<Integer, DictDB<Address, Integer>> accountIdxDict = Context.newBranchDB("accounts_idx_dict", Integer.class);
+    protected final BranchDB<Integer, DictDB<Address, VestingAccount>> vestingAccount = Context.newBranchDB("vesting_account", VestingAccount.class);
+    protected final BranchDB<Integer, DictDB<Integer, Address>> idxAccountDict = Context.newBranchDB("idx_accounts_dict", Address.class);
+    // ids of the vestings which each address belongs to
+    protected final BranchDB<Address, ArrayDB<Integer>> accountVestings = Context.newBranchDB("account_vestings", Integer.class);
+    protected final DictDB<Integer, Boolean> accountIndexDisabled = Context.newDictDB("account_index_disabled", Boolean.class);
     protected final DictDB<Integer, Integer> accountInfoCount = Context.newDictDB("account_info_count", Integer.class);
-
+    protected final DictDB<Integer, byte[]> merkleRoot = Context.newDictDB("merkle_root", byte[].class);
+    protected final BranchDB<Integer, DictDB<Address, Boolean>> merkleRevoked = Context.newBranchDB("merkle_revoked", Boolean.class);
+    protected final DictDB<Integer, RegistrationSession> registrationSession = Context.newDictDB("registration_session", RegistrationSession.class);
+
+    // curves of the Custom vestings by their hash, the vestings of the same curve share the entry
+    protected final DictDB<byte[], byte[]> sharedCurve = Context.newDictDB("shared_curve", byte[].class);
+    // vesting_schedule has the schedules registered before compact_schedule
+    protected static final VarDB<Integer> legacyScheduleLastId = Context.newVarDB("legacy_schedule_last_id", Integer.class);
     protected final DictDB<Integer, VestingSchedule> vestingSchedule = Context.newDictDB("vesting_schedule", VestingSchedule.class);
+    protected final DictDB<Integer, byte[]> compactSchedule = Context.newDictDB("compact_schedule", byte[].class);
     protected final VarDB<Integer> vestingId = Context.newVarDB("vesting_id", Integer.class);
+    protected final VarDB<Address> keeper = Context.newVarDB("keeper", Address.class);
 
     protected boolean _isCaller(Address address) {
         return Context.getCaller().equals(address);
@@ -40,12 +58,143 @@ public class Vesting {
         _require(_isCaller(Context.getOwner()), "Only owner can call this method");
     }
 
+    protected void _onlyOwnerOrKeeper() {
+        _require(_isCaller(Context.getOwner()) || _isCaller(keeper()), "Only owner or keeper can call this method");
+    }
+
+    protected boolean _isLegacy(int id) {
+        return id <= legacyLastId.getOrDefault(-1);
+    }
+
+    protected VestingSchedule _getSchedule(int id) {
+        if(id <= legacyScheduleLastId.getOrDefault(-1))
+            return vestingSchedule.get(id);
+        byte[] data = compactSchedule.get(id);
+        return data == null ? null : VestingScheduleCodec.decode(data);
+    }
+
+    protected void _setSchedule(int id, VestingSchedule schedule) {
+        compactSchedule.set(id, VestingScheduleCodec.encode(schedule));
+    }
+
+    protected boolean _isIndexed(int id) {
+        return !accountIndexDisabled.getOrDefault(id, false);
+    }
+
+    protected VestingAccount _getAccount(int id, Address address) {
+        VestingAccount account = vestingAccount.at(id).get(address);
+        if(account == null && _isLegacy(id)) {
+            AccountInfo info = accountInfo.at(id).get(address);
+            if(info != null) {
+                account = new VestingAccount(info.getTotalAmount(),
+                        accountClaimed.at(id).getOrDefault(address, BigInteger.ZERO),
+                        accountIdxDict.at(id).getOrDefault(address, -1));
+                account.legacy = true;
+            }
+        }
+        return account;
+    }
+
+    protected void _setAccount(int id, Address address, VestingAccount account) {
+        if(account.legacy) {
+            _clearLegacyAccount(id, address);
+            account.legacy = false;
+        }
+        vestingAccount.at(id).set(address, account);
+    }
+
+    protected void _deleteAccount(int id, Address address, VestingAccount account) {
+        if(account.legacy) {
+            _clearLegacyAccount(id, address);
+        }
+        vestingAccount.at(id).set(address, null);
+    }
+
+    protected int _findAccountVesting(ArrayDB<Integer> ids, int id) {
+        int size = ids.size();
+        for(int i=0; i<size; i++) {
+            if(ids.get(i) == id)
+                return i;
+        }
+        return -1;
+    }
+
+    protected void _removeAccountVesting(int id, Address address) {
+        ArrayDB<Integer> ids = accountVestings.at(address);
+        int i = _findAccountVesting(ids, id);
+        if(i < 0)
+            return;
+
+        Integer last = ids.pop();
+        if(i < ids.size())
+            ids.set(i, last);
+    }
+
+    protected void _clearLegacyAccount(int id, Address address) {
+        accountInfo.at(id).set(address, null);
+        accountClaimed.at(id).set(address, null);
+        accountIdxDict.at(id).set(address, null);
+    }
+
+    protected byte[] _getCurve(VestingSchedule schedule) {
+        return sharedCurve.get(schedule.curveHash);
+    }
+
+    protected void _checkSealed(int id) {
+        _require(registrationSession.get(id) == null, "vesting registration is not sealed");
+    }
+
+    protected boolean _verifyProof(byte[] root, Address address, BigInteger amount, byte[][] proof) {
+        byte[] hash = _makeHash(address.toString().getBytes(), amount.toString().getBytes());
+        for(byte[] leaf : proof) {
+            if(_compare(hash, leaf) <= 0) {
+                hash = _makeHash(hash, leaf);
+            } else {
+                hash = _makeHash(leaf, hash);
+            }
+        }
+
+        return _compare(hash, root) == 0;
+    }
+
+    protected int _compare(byte[] a, byte[] b) {
+        int count = Math.min(a.length, b.length);
+        for(int i=0; i<count; i++) {
+            int cmp = Integer.compare(0xff & a[i], 0xff & b[i]);
+            if(cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return a.length - b.length;
+    }
+
+    protected byte[] _makeHash(byte[] a, byte[] b) {
+        byte[] c = new byte[a.length + b.length];
+        System.arraycopy(a, 0, c, 0, a.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return Context.hash("keccak-256", c);
+    }
+
     protected void _checkStartEndTime(VestingScheduleType type, long start, long end) {
         _require(start > Datetime.GENESIS_TIMESTAMP, "the start_time must be after 2024.01.01 00:00(UTC)");
-        if(type != VestingScheduleType.Onetime)
+        if(type != VestingScheduleType.Onetime && type != VestingScheduleType.Custom)
             _require(start < end, "the start_time must be less than the end_time");
     }
 
+    protected void _checkCurve(long[] times, int[] rates) {
+        _require(times.length > 0, "empty vesting times");
+        _require(times.length == rates.length, "times and rates must have the same length");
+        for(int i=0; i<times.length; i++) {
+            _require(rates[i] > 0 && rates[i] <= VestingCurve.FULL_RATE, "invalid rate");
+            if(i > 0) {
+                _require(times[i] > times[i - 1], "vesting times must be increasing");
+                _require(rates[i] >= rates[i - 1], "rates must be cumulative");
+            }
+        }
+        _require(rates[rates.length - 1] == VestingCurve.FULL_RATE, "the last rate must be " + VestingCurve.FULL_RATE);
+    }
+
     protected void _checkScheduleParams4Type(VestingScheduleType type, @Optional int month, @Optional int day,
                                              @Optional int weekday, @Optional int hour) {
         switch (type) {
@@ -53,6 +202,7 @@ public class Vesting {
             case Weekly:
             case Monthly:
             case Yearly:
+            case CliffMonthly:
                 _require(hour > -1 && hour < 24, "invalid hour");
         }
         switch (type) {
@@ -62,22 +212,38 @@ public class Vesting {
             case Yearly:
                 _require(month > -1 && month < 13, "invalid month");
             case Monthly:
+            case CliffMonthly:
                 _require(day > -1 && day < 32, "invalid day");
         }
     }
 
-    protected void _checkVestingTimes(VestingScheduleType style, List vestingTimes) {
-        switch (style) {
+    protected void _checkVestingTimes(VestingSchedule schedule) {
+        switch (schedule.type) {
+            case Periodic:
+                _require(schedule.timeInterval > 0, "invalid time interval");
+                break;
             case Daily:
             case Weekly:
             case Monthly:
             case Yearly:
-                _require(vestingTimes.size() > 0, "empty vesting times");
+                _require(VestingScheduleType.totalCount(schedule) > 0, "empty vesting times");
+                break;
+            case CliffLinear:
+            case CliffMonthly:
+                _require(schedule.startTime <= schedule.cliffTime && schedule.cliffTime < schedule.endTime, "invalid cliff time");
+                _require(schedule.cliffRate >= 0 && schedule.cliffRate <= VestingCurve.FULL_RATE, "invalid cliff rate");
+                if(schedule.type == VestingScheduleType.CliffMonthly)
+                    _require(VestingScheduleType.totalCount(VestingScheduleType.afterCliff(schedule)) > 0, "empty vesting times");
         }
     }
 
     public Vesting(String _name) {
         name.set(_name);
+        // the vestings registered before are read from the legacy account layout
+        if(legacyLastId.get() == null)
+            legacyLastId.set(lastId());
+        if(legacyScheduleLastId.get() == null)
+            legacyScheduleLastId.set(lastId());
     }
 
     @Payable
@@ -88,6 +254,36 @@ public class Vesting {
         }
     }
 
+    @External
+    public void setKeeper(@Optional Address _keeper) {
+        _onlyOwner();
+        keeper.set(_keeper);
+    }
+
+    @External(readonly = true)
+    public Address keeper() {
+        return keeper.get();
+    }
+
+    /**
+     * Adds the accounts of the vesting in the range of the registration order to the vesting ids of the address.
+     * It's for the accounts which were added before the ids were kept, and the accounts already added are skipped.
+     */
+    @External
+    public int indexAccountVestings(int _id, int _fromIndex, int _count) {
+        _onlyOwner();
+        _require(_isIndexed(_id), "account index is disabled");
+        _require(_fromIndex >= 0 && _count > 0, "invalid range");
+
+        int end = (int) Math.min(accountCount(_id), (long) _fromIndex + _count);
+        for(int i=_fromIndex; i<end; i++) {
+            ArrayDB<Integer> ids = accountVestings.at(idxAccountDict.at(_id).get(i));
+            if(_findAccountVesting(ids, _id) < 0)
+                ids.add(_id);
+        }
+        return end;
+    }
+
     @External(readonly = true)
     public int lastId() {
         return vestingId.getOrDefault(-1);
@@ -142,13 +338,63 @@ public class Vesting {
         RegisteredYearlyVesting(id, _token, _startTime, _endTime, _month, _day, _hour);
     }
 
+    /**
+     * Registers a vesting which unlocks the cumulative rate(basis points) of the total amount at each time.
+     */
+    @External
+    public void registerCustomVesting(Address _token, long[] _times, int[] _rates, AccountInfo[] _accounts) {
+        _checkCurve(_times, _rates);
+        long startTime = _times[0];
+        long endTime = _times[_times.length - 1];
+        byte[] curve = VestingCurve.encode(startTime, _times, _rates);
+        byte[] curveHash = Context.hash("keccak-256", curve);
+        if(sharedCurve.get(curveHash) == null)
+            sharedCurve.set(curveHash, curve);
+        VestingSchedule schedule = _newSchedule(VestingScheduleType.Custom, _token, startTime, endTime, 0,
+                -1, -1, -1, -1);
+        schedule.setCurveHash(curveHash);
+        int id = _registerSchedule(schedule, _accounts);
+        RegisteredCustomVesting(id, _token, startTime, endTime, _times.length);
+    }
+
+    /**
+     * Registers a vesting which unlocks the cliff rate(basis points) of the total amount at the cliff time,
+     * and the rest linearly from the cliff time to the end time.
+     */
+    @External
+    public void registerCliffLinearVesting(Address _token, long _startTime, long _cliffTime, int _cliffRate, long _endTime,
+                                           AccountInfo[] _accounts) {
+        VestingSchedule schedule = _newSchedule(VestingScheduleType.CliffLinear, _token, _startTime, _endTime, 0,
+                -1, -1, -1, -1);
+        schedule.setCliffTime(_cliffTime);
+        schedule.setCliffRate(_cliffRate);
+        int id = _registerSchedule(schedule, _accounts);
+        RegisteredCliffLinearVesting(id, _token, _startTime, _cliffTime, _cliffRate, _endTime);
+    }
+
+    /**
+     * Registers a vesting which unlocks the cliff rate(basis points) of the total amount at the cliff time,
+     * and the rest monthly on the day and the hour after the cliff time until the end time.
+     */
+    @External
+    public void registerCliffMonthlyVesting(Address _token, long _startTime, long _cliffTime, int _cliffRate, long _endTime,
+                                            int _day, int _hour, AccountInfo[] _accounts) {
+        VestingSchedule schedule = _newSchedule(VestingScheduleType.CliffMonthly, _token, _startTime, _endTime, 0,
+                -1, _day, -1, _hour);
+        schedule.setCliffTime(_cliffTime);
+        schedule.setCliffRate(_cliffRate);
+        int id = _registerSchedule(schedule, _accounts);
+        RegisteredCliffMonthlyVesting(id, _token, _startTime, _cliffTime, _cliffRate, _endTime, _day, _hour);
+    }
+
     protected int _registerConditionalVesting(VestingScheduleType type, Address token, long startTime, long endTime, long timeInterval,
                                                AccountInfo[] accounts, int month, int day,
                                                int weekday, int hour) {
-        _onlyOwner();
-        _checkStartEndTime(type, startTime, endTime);
-        _checkScheduleParams4Type(type, month, day, weekday, hour);
+        return _registerSchedule(_newSchedule(type, token, startTime, endTime, timeInterval, month, day, weekday, hour), accounts);
+    }
 
+    protected VestingSchedule _newSchedule(VestingScheduleType type, Address token, long startTime, long endTime, long timeInterval,
+                                           int month, int day, int weekday, int hour) {
         VestingSchedule schedule = new VestingSchedule();
         schedule.setType(type);
         schedule.setToken(token);
@@ -159,99 +405,194 @@ public class Vesting {
         schedule.setDay(day);
         schedule.setWeekday(weekday);
         schedule.setHour(hour);
+        return schedule;
+    }
+
+    protected int _registerSchedule(VestingSchedule schedule, AccountInfo[] accounts) {
+        _onlyOwner();
+        _checkStartEndTime(schedule.type, schedule.startTime, schedule.endTime);
+        _checkScheduleParams4Type(schedule.type, schedule.month, schedule.day, schedule.weekday, schedule.hour);
+        _checkVestingTimes(schedule);
 
         int id = lastId() + 1;
         vestingId.set(id);
-        vestingSchedule.set(id, schedule);
+        _setSchedule(id, schedule);
 
-        List vestingTime = VestingScheduleType.calculateVestingTime(schedule);
-        _checkVestingTimes(type, vestingTime);
-        for(int i=0; i<vestingTime.size(); i++) {
-            vestingTimes.at(id).add((long) vestingTime.get(i));
-        }
-
-        BigInteger total = BigInteger.ZERO;
-        int idx = accountInfoCount.getOrDefault(id, 0);
-        for(AccountInfo account : accounts) {
-            _require(accountInfo.at(id).get(account.getAddress()) == null, "duplicated address");
+        accountInfoCount.set(id, accounts.length);
+        totalAmount.set(id, _putAccounts(id, 0, accounts));
 
-            BigInteger accountTotal = account.getTotalAmount();
-            total = total.add(accountTotal);
-            account.setTotalAmount(accountTotal);
+        return id;
+    }
 
+    protected BigInteger _putAccounts(int id, int idx, AccountInfo[] accounts) {
+        boolean legacy = _isLegacy(id);
+        boolean indexed = _isIndexed(id);
+        BigInteger sum = BigInteger.ZERO;
+        for(AccountInfo account : accounts) {
             Address address = account.getAddress();
-            accountInfo.at(id).set(address, account);
-            idxAccountDict.at(id).set(idx, address);
-            accountIdxDict.at(id).set(address, idx);
+            _require(vestingAccount.at(id).get(address) == null
+                    && (!legacy || accountInfo.at(id).get(address) == null), "duplicated address");
+
+            sum = sum.add(account.getTotalAmount());
+            vestingAccount.at(id).set(address, new VestingAccount(account.getTotalAmount(), BigInteger.ZERO, idx));
+            accountVestings.at(address).add(id);
+            if(indexed)
+                idxAccountDict.at(id).set(idx, address);
             idx++;
         }
-        accountInfoCount.set(id, idx);
-        totalAmount.set(id, total);
+        return sum;
+    }
 
-        return id;
+    /**
+     * Enables or disables the index of accounts by the order of registration. It can be changed before accounts are added.
+     * Without the index, accounts of the vesting can't be enumerated but each account costs one storage entry.
+     */
+    @External
+    public void setAccountIndex(int _id, boolean _enabled) {
+        _onlyOwner();
+        _require(_getSchedule(_id) != null, "vesting was not registered");
+        _checkSealed(_id);
+        _require(accountInfoCount.getOrDefault(_id, 0) == 0, "vesting already has accounts");
+        accountIndexDisabled.set(_id, _enabled ? null : true);
     }
 
     @External
     public void addVestingAccounts(int _id, AccountInfo[] _accounts) {
         _onlyOwner();
         _require(_accounts.length > 0, "no accounts");
-        VestingSchedule schedule = vestingSchedule.get(_id);
+        VestingSchedule schedule = _getSchedule(_id);
         _require(schedule != null, "vesting was not registered");
+        _checkSealed(_id);
 
-        //VestingScheduleType style = schedule.getType();
-        BigInteger sumAmount = totalAmount.get(_id);
-        //int size = vestingTimes.at(_id).size();
         int idx = accountInfoCount.getOrDefault(_id, 0);
+        BigInteger sumAmount = totalAmount.get(_id).add(_putAccounts(_id, idx, _accounts));
+        accountInfoCount.set(_id, idx + _accounts.length);
+        totalAmount.set(_id, sumAmount);
+    }
 
-        for(AccountInfo account : _accounts) {
-            _require(accountInfo.at(_id).get(account.getAddress()) == null, "duplicated address");
+    /**
+     * Sets the merkle root of (address, totalAmount) pairs to the vesting which has no account.
+     * Accounts are not stored on registration, each of them is registered by the proof on the first claim.
+     * The leaf and the proof are the same as MerkleAirdrop, keccak-256 of address and amount strings with sorted pairs.
+     */
+    @External
+    public void setMerkleRoot(int _id, byte[] _merkleRoot, BigInteger _totalAmount) {
+        _onlyOwner();
+        _require(_getSchedule(_id) != null, "vesting was not registered");
+        _checkSealed(_id);
+        _require(_merkleRoot != null && _merkleRoot.length > 0, "empty merkle root");
+        _require(merkleRoot.get(_id) == null, "merkle root was already set");
+        _require(accountInfoCount.getOrDefault(_id, 0) == 0, "vesting already has accounts");
+
+        merkleRoot.set(_id, _merkleRoot);
+        totalAmount.set(_id, _totalAmount);
+        MerkleRootSet(_id, _merkleRoot, _totalAmount);
+    }
 
-            BigInteger total = account.getTotalAmount();
-            sumAmount = sumAmount.add(total);
-            //account.setTotalAmount(total);
+    @External(readonly = true)
+    public byte[] merkleRoot(int _id) {
+        return merkleRoot.get(_id);
+    }
 
-            Address address = account.getAddress();
-            accountInfo.at(_id).set(address, account);
-            idxAccountDict.at(_id).set(idx, address);
-            accountIdxDict.at(_id).set(address, idx);
-            idx++;
-        }
-        accountInfoCount.set(_id, idx);
-        totalAmount.set(_id, sumAmount);
+    /**
+     * Opens a registration session of the vesting which has no account yet.
+     * Accounts can be appended by chunks with appendVestingAccounts() in any order,
+     * and the vesting can't be claimed until the session is sealed by sealRegistration().
+     */
+    @External
+    public void openRegistration(int _id) {
+        _onlyOwner();
+        _require(_getSchedule(_id) != null, "vesting was not registered");
+        _checkSealed(_id);
+        _require(accountInfoCount.getOrDefault(_id, 0) == 0, "vesting already has accounts");
+        _require(merkleRoot.get(_id) == null, "merkle vesting can't open registration");
+
+        registrationSession.set(_id, new RegistrationSession());
+        RegistrationOpened(_id);
     }
 
     @External
-    public void removeVestingAccounts(int _id, Address[] _accounts) {
+    public void appendVestingAccounts(int _id, AccountInfo[] _accounts) {
         _onlyOwner();
         _require(_accounts.length > 0, "no accounts");
-        VestingSchedule schedule = vestingSchedule.get(_id);
-        _require(schedule != null, "vesting was not registered");
-
-        int count = accountInfoCount.getOrDefault(_id, 0) - 1;
-        for(Address address : _accounts) {
-            AccountInfo info = accountInfo.at(_id).get(address);
-            _require(info != null, "vesting entry is not found");
+        RegistrationSession session = registrationSession.get(_id);
+        _require(session != null, "registration session is not opened");
+
+        int idx = session.getAccountCount();
+        session.setTotalAmount(session.getTotalAmount().add(_putAccounts(_id, idx, _accounts)));
+        session.setAccountCount(idx + _accounts.length);
+        session.setChunkCount(session.getChunkCount() + 1);
+        registrationSession.set(_id, session);
+    }
 
-            BigInteger claimedAmount = accountClaimed.at(_id).getOrDefault(address, BigInteger.ZERO);
-            BigInteger total = totalAmount.get(_id);
+    /**
+     * Seals the registration session. The expected values must match the running totals of the session,
+     * so a missing or an extra chunk can be detected before the vesting is opened for claims.
+     */
+    @External
+    public void sealRegistration(int _id, int _accountCount, BigInteger _totalAmount) {
+        _onlyOwner();
+        RegistrationSession session = registrationSession.get(_id);
+        _require(session != null, "registration session is not opened");
+        _require(session.getAccountCount() == _accountCount, "account count mismatch");
+        _require(session.getTotalAmount().equals(_totalAmount), "total amount mismatch");
+
+        accountInfoCount.set(_id, session.getAccountCount());
+        totalAmount.set(_id, session.getTotalAmount());
+        registrationSession.set(_id, null);
+        RegistrationSealed(_id, session.getAccountCount(), session.getTotalAmount());
+    }
 
-            BigInteger claimable_amount = info.getTotalAmount().subtract(claimedAmount);
-            total = total.subtract(claimable_amount);
-            totalAmount.set(_id, total);
+    @External(readonly = true)
+    public Map registration(int _id) {
+        RegistrationSession session = registrationSession.get(_id);
+        if(session == null) return Map.of();
+        return session.toMap();
+    }
 
-            accountClaimed.at(_id).set(address, null);
+    @External
+    public void removeVestingAccounts(int _id, Address[] _accounts) {
+        _onlyOwner();
+        _require(_accounts.length > 0, "no accounts");
+        VestingSchedule schedule = _getSchedule(_id);
+        _require(schedule != null, "vesting was not registered");
+        _checkSealed(_id);
 
-            accountInfo.at(_id).set(address, null);
+        boolean merkle = merkleRoot.get(_id) != null;
+        boolean indexed = _isIndexed(_id);
+        int count = accountInfoCount.getOrDefault(_id, 0);
+        BigInteger total = totalAmount.get(_id);
+        BigInteger removed = removedClaimed.getOrDefault(_id, BigInteger.ZERO);
+        for(Address address : _accounts) {
+            VestingAccount account = _getAccount(_id, address);
+            if(merkle) {
+                // the account can't be registered by the proof any more
+                merkleRevoked.at(_id).set(address, true);
+                if(account == null)
+                    continue;
+            }
+            _require(account != null, "vesting entry is not found");
 
-            Address last = idxAccountDict.at(_id).get(count);
-            int idx = accountIdxDict.at(_id).get(address);
-            accountIdxDict.at(_id).set(last, idx);
-            idxAccountDict.at(_id).set(idx, last);
-            accountIdxDict.at(_id).set(address, null);
-            idxAccountDict.at(_id).set(count, null);
+            total = total.subtract(account.getTotalAmount().subtract(account.getClaimed()));
+            removed = removed.add(account.getClaimed());
+            _deleteAccount(_id, address, account);
+            _removeAccountVesting(_id, address);
 
             count--;
+            if(indexed) {
+                Address last = idxAccountDict.at(_id).get(count);
+                int idx = account.getIndex();
+                if(idx != count) {
+                    VestingAccount lastAccount = _getAccount(_id, last);
+                    lastAccount.setIndex(idx);
+                    _setAccount(_id, last, lastAccount);
+                    idxAccountDict.at(_id).set(idx, last);
+                }
+                idxAccountDict.at(_id).set(count, null);
+            }
         }
+        totalAmount.set(_id, total);
+        removedClaimed.set(_id, removed.signum() > 0 ? removed : null);
         accountInfoCount.set(_id, count);
     }
 
@@ -271,66 +612,173 @@ public class Vesting {
         Withdrawn(_token, recipient, _amount);
     }
 
-    protected BigInteger _vestedAmountFrom(VestingScheduleType style, long startTime, long endTime, ArrayDB<Long> vestingTime, long blockTime, AccountInfo info) {
-        BigInteger total = info.getTotalAmount();
-        if(style == VestingScheduleType.Onetime) {
-            if(startTime <= blockTime) {
-                return total;
-            }
+    /**
+     * Returns the vested fraction of the schedule at the given time as [numerator, denominator].
+     * The fraction doesn't depend on accounts, so it can be shared by the accounts of the vesting.
+     */
+    protected BigInteger[] _vestedRatio(int id, VestingSchedule schedule, long blockTime) {
+        byte[] curve = schedule.type == VestingScheduleType.Custom ? _getCurve(schedule) : null;
+        return VestingScheduleType.vestedRatio(schedule, curve, blockTime);
+    }
+
+    protected BigInteger _vestedAmountOf(BigInteger[] ratio, BigInteger total) {
+        return VestingScheduleType.vestedAmount(ratio, total);
+    }
+
+    protected BigInteger _vestedAmountFrom(int id, VestingSchedule schedule, long blockTime, BigInteger total) {
+        return _vestedAmountOf(_vestedRatio(id, schedule, blockTime), total);
+    }
+
+    protected BigInteger _claimVested(int id, VestingSchedule schedule, Address address, VestingAccount account) {
+        BigInteger claimed = account.getClaimed();
+        BigInteger vestedAmount = _vestedAmountFrom(id, schedule, Context.getBlockTimestamp(), account.getTotalAmount());
+        if(vestedAmount.compareTo(claimed) <= 0)
             return BigInteger.ZERO;
-        }
-        if(blockTime >= endTime) {
-            return total;
-        }
-        if(style == VestingScheduleType.Linear) {
-            if(blockTime < startTime) {
-                return BigInteger.ZERO;
-            }
-            return total.multiply(BigInteger.valueOf(blockTime).subtract(BigInteger.valueOf(startTime)))
-                    .divide(BigInteger.valueOf(endTime).subtract(BigInteger.valueOf(startTime)));
-        }
-        return total.multiply(BigInteger.valueOf(_passedCountFrom(vestingTime, blockTime)))
-                .divide(BigInteger.valueOf(vestingTime.size()));
+
+        BigInteger claimableAmount = vestedAmount.subtract(claimed);
+        account.setClaimed(vestedAmount);
+        _setAccount(id, address, account);
+        totalClaimed.set(id, totalClaimed.getOrDefault(id, BigInteger.ZERO).add(claimableAmount));
+        return claimableAmount;
     }
 
-    protected int _passedCountFrom(ArrayDB<Long> vestingTime, long blockTime) {
-        int passed = 0;
-        for(int i=0; i<vestingTime.size(); i++) {
-            if(vestingTime.get(i) > blockTime)
-                return passed;
-            passed++;
+    /**
+     * Claims the vested amount of the merkle vesting. On the first claim, the account is registered by the proof.
+     */
+    @External
+    public void claimWithProof(int _id, BigInteger _totalAmount, byte[][] _proof) {
+        Address caller = Context.getCaller();
+        VestingAccount account = _getAccount(_id, caller);
+        if(account == null) {
+            byte[] root = merkleRoot.get(_id);
+            _require(root != null, "vesting entry is not found");
+            _require(!merkleRevoked.at(_id).getOrDefault(caller, false), "vesting entry was removed");
+            _require(_verifyProof(root, caller, _totalAmount, _proof), "Invalid proof");
+
+            AccountInfo info = new AccountInfo();
+            info.setAddress(caller);
+            info.setTotalAmount(_totalAmount);
+            int idx = accountInfoCount.getOrDefault(_id, 0);
+            _putAccounts(_id, idx, new AccountInfo[] { info });
+            accountInfoCount.set(_id, idx + 1);
+            account = new VestingAccount(_totalAmount, BigInteger.ZERO, idx);
         }
-        return passed;
+        _claim(_id, caller, account);
     }
 
     @External
     public void claim(int _id) {
-        VestingSchedule schedule = vestingSchedule.get(_id);
-        _require(schedule != null, "vesting was not registered");
         Address caller = Context.getCaller();
-        AccountInfo info = accountInfo.at(_id).get(caller);
-        _require(info != null, "vesting entry is not found");
+        _claim(_id, caller, _getAccount(_id, caller));
+    }
 
-        Address token = schedule.token;
+    protected void _claim(int id, Address caller, VestingAccount account) {
+        VestingSchedule schedule = _getSchedule(id);
+        _require(schedule != null, "vesting was not registered");
+        _checkSealed(id);
+        _require(account != null, "vesting entry is not found");
 
-        BigInteger claimed = accountClaimed.at(_id).getOrDefault(caller, BigInteger.ZERO);
-        _require(info.getTotalAmount().compareTo(claimed) > 0, "no claimable amount");
+        Address token = schedule.token;
+        _require(account.getTotalAmount().compareTo(account.getClaimed()) > 0, "no claimable amount");
 
-        BigInteger vestedAmount = _vestedAmountFrom(schedule.type, schedule.startTime, schedule.endTime, vestingTimes.at(_id), Context.getBlockTimestamp(), info);
-        if(vestedAmount.compareTo(claimed) <= 0)
+        BigInteger claimableAmount = _claimVested(id, schedule, caller, account);
+        if(claimableAmount.signum() == 0)
             return;
 
-        BigInteger claimableAmount = vestedAmount.subtract(claimed);
-        accountClaimed.at(_id).set(caller, claimed.add(claimableAmount));
-        totalClaimed.set(_id, totalClaimed.getOrDefault(_id, BigInteger.ZERO).add(claimableAmount));
         _transfer(token, caller, claimableAmount);
-
         Claimed(token, caller, claimableAmount);
     }
 
+    /**
+     * Claims the vested amounts of several vestings at once.
+     * The amounts are summed up per token, so the tokens are transferred once per token.
+     */
+    @External
+    public void claimMany(int[] _ids) {
+        _require(_ids.length > 0, "no vesting ids");
+        Address caller = Context.getCaller();
+
+        List tokens = new ArrayList();
+        List amounts = new ArrayList();
+        List counts = new ArrayList();
+        for(int id : _ids) {
+            VestingSchedule schedule = _getSchedule(id);
+            _require(schedule != null, "vesting was not registered");
+            _checkSealed(id);
+            VestingAccount account = _getAccount(id, caller);
+            _require(account != null, "vesting entry is not found");
+
+            if(account.getTotalAmount().compareTo(account.getClaimed()) <= 0)
+                continue;
+
+            BigInteger claimableAmount = _claimVested(id, schedule, caller, account);
+            if(claimableAmount.signum() == 0)
+                continue;
+
+            int idx = tokens.indexOf(schedule.token);
+            if(idx < 0) {
+                tokens.add(schedule.token);
+                amounts.add(claimableAmount);
+                counts.add(1);
+            } else {
+                amounts.set(idx, ((BigInteger) amounts.get(idx)).add(claimableAmount));
+                counts.set(idx, (int) counts.get(idx) + 1);
+            }
+        }
+        _require(tokens.size() > 0, "no claimable amount");
+
+        for(int i=0; i<tokens.size(); i++) {
+            Address token = (Address) tokens.get(i);
+            BigInteger amount = (BigInteger) amounts.get(i);
+            _transfer(token, caller, amount);
+            ClaimedMany(token, caller, amount, (int) counts.get(i));
+        }
+    }
+
+    /**
+     * Pays out the vested amounts of the accounts in the range of the registration order on behalf of them.
+     * Returns the index to continue from, it's the account count when all accounts have been visited,
+     * so a large vesting can be distributed over several transactions.
+     */
+    @External
+    public int distribute(int _id, int _fromIndex, int _count) {
+        _onlyOwnerOrKeeper();
+        VestingSchedule schedule = _getSchedule(_id);
+        _require(schedule != null, "vesting was not registered");
+        _checkSealed(_id);
+        _require(_isIndexed(_id), "account index is disabled");
+        _require(_fromIndex >= 0 && _count > 0, "invalid range");
+
+        Address token = schedule.token;
+        BigInteger[] ratio = _vestedRatio(_id, schedule, Context.getBlockTimestamp());
+        int end = (int) Math.min(accountCount(_id), (long) _fromIndex + _count);
+        BigInteger sum = BigInteger.ZERO;
+        for(int i=_fromIndex; i<end; i++) {
+            Address address = idxAccountDict.at(_id).get(i);
+            VestingAccount account = _getAccount(_id, address);
+            BigInteger vested = _vestedAmountOf(ratio, account.getTotalAmount());
+            if(vested.compareTo(account.getClaimed()) <= 0)
+                continue;
+
+            BigInteger amount = vested.subtract(account.getClaimed());
+            account.setClaimed(vested);
+            _setAccount(_id, address, account);
+            _transfer(token, address, amount);
+            Claimed(token, address, amount);
+            sum = sum.add(amount);
+        }
+        if(sum.signum() > 0)
+            totalClaimed.set(_id, totalClaimed.getOrDefault(_id, BigInteger.ZERO).add(sum));
+
+        Distributed(_id, end, sum);
+        return end;
+    }
+
     @External(readonly = true)
     public List getAccounts(int _id) {
         List list = new ArrayList();
+        if(!_isIndexed(_id)) return list;
+
         int size = accountCount(_id);
         for(int i=0; i<size; i++) {
             list.add(idxAccountDict.at(_id).get(i));
@@ -338,16 +786,45 @@ public class Vesting {
         return list;
     }
 
+    /**
+     * Returns the states of the accounts in the range of the registration order.
+     * The vested fraction is computed once for the page. Returns an empty list if the account index is disabled.
+     */
+    @External(readonly = true)
+    public List getAccountStates(int _id, int _offset, int _limit) {
+        List list = new ArrayList();
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null || !_isIndexed(_id)) return list;
+        _require(_offset >= 0 && _limit > 0, "invalid range");
+
+        BigInteger[] ratio = _vestedRatio(_id, schedule, Context.getBlockTimestamp());
+        int end = (int) Math.min(accountCount(_id), (long) _offset + _limit);
+        for(int i=_offset; i<end; i++) {
+            Address address = idxAccountDict.at(_id).get(i);
+            VestingAccount account = _getAccount(_id, address);
+            BigInteger vested = _vestedAmountOf(ratio, account.getTotalAmount());
+            BigInteger claimed = account.getClaimed();
+            list.add(Map.of(
+                    "address", address,
+                    "total", account.getTotalAmount(),
+                    "vested", vested,
+                    "claimed", claimed,
+                    "claimable", vested.compareTo(claimed) > 0 ? vested.subtract(claimed) : BigInteger.ZERO
+            ));
+        }
+        return list;
+    }
+
     @External(readonly = true)
     public Map getAccountInfo(int _id, Address _address) {
-        AccountInfo aInfo = accountInfo.at(_id).get(_address);
-        if(aInfo == null) return Map.of();
+        VestingAccount account = _getAccount(_id, _address);
+        if(account == null) return Map.of();
 
-        VestingSchedule schedule = vestingSchedule.get(_id);
-        BigInteger vested = _vestedAmountFrom(schedule.type, schedule.startTime, schedule.endTime, vestingTimes.at(_id), Context.getBlockTimestamp(), aInfo);
-        BigInteger claimed = accountClaimed.at(_id).getOrDefault(_address, BigInteger.ZERO);
+        VestingSchedule schedule = _getSchedule(_id);
+        BigInteger vested = _vestedAmountFrom(_id, schedule, Context.getBlockTimestamp(), account.getTotalAmount());
+        BigInteger claimed = account.getClaimed();
         return Map.of(
-                "total", aInfo.getTotalAmount(),
+                "total", account.getTotalAmount(),
                 "vested", vested,
                 "claimed", claimed,
                 "claimable", vested.subtract(claimed)
@@ -356,7 +833,7 @@ public class Vesting {
 
     @External(readonly = true)
     public Map info(int _id) {
-        VestingSchedule schedule = vestingSchedule.get(_id);
+        VestingSchedule schedule = _getSchedule(_id);
         if(schedule != null)
             return Map.of(
                     "type", schedule.type.name(),
@@ -373,18 +850,76 @@ public class Vesting {
         return Map.of();
     }
 
+    /**
+     * Returns the outstanding amounts of the vesting without iterating accounts.
+     * The vested amount is computed from the total of the remaining accounts, so it can be larger than the sum of
+     * the vested amounts of each account by the rounding, less than one unit per account.
+     */
+    @External(readonly = true)
+    public Map liability(int _id) {
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null) return Map.of();
+
+        BigInteger removed = removedClaimed.getOrDefault(_id, BigInteger.ZERO);
+        BigInteger total = totalAmount.getOrDefault(_id, BigInteger.ZERO).subtract(removed);
+        BigInteger claimed = totalClaimed.getOrDefault(_id, BigInteger.ZERO).subtract(removed);
+        BigInteger vested = _vestedAmountFrom(_id, schedule, Context.getBlockTimestamp(), total);
+        BigInteger unclaimed = vested.subtract(claimed);
+        return Map.of(
+                "total", total,
+                "claimed", claimed,
+                "vested", vested,
+                "vestedUnclaimed", unclaimed.signum() > 0 ? unclaimed : BigInteger.ZERO,
+                "locked", total.subtract(vested)
+        );
+    }
+
+    @External(readonly = true)
+    public int portfolioCount(Address _address) {
+        return accountVestings.at(_address).size();
+    }
+
+    /**
+     * Returns the states of the address in the vestings it belongs to.
+     */
+    @External(readonly = true)
+    public List portfolio(Address _address, int _offset, int _limit) {
+        _require(_offset >= 0 && _limit > 0, "invalid range");
+        List list = new ArrayList();
+        ArrayDB<Integer> ids = accountVestings.at(_address);
+        long blockTime = Context.getBlockTimestamp();
+        int end = (int) Math.min(ids.size(), (long) _offset + _limit);
+        for(int i=_offset; i<end; i++) {
+            int id = ids.get(i);
+            VestingSchedule schedule = _getSchedule(id);
+            VestingAccount account = _getAccount(id, _address);
+            BigInteger vested = _vestedAmountFrom(id, schedule, blockTime, account.getTotalAmount());
+            BigInteger claimed = account.getClaimed();
+            list.add(Map.of(
+                    "id", id,
+                    "token", schedule.token,
+                    "total", account.getTotalAmount(),
+                    "vested", vested,
+                    "claimed", claimed,
+                    "claimable", vested.compareTo(claimed) > 0 ? vested.subtract(claimed) : BigInteger.ZERO
+            ));
+        }
+        return list;
+    }
+
     @External(readonly = true)
     public BigInteger claimableAmount(int _id, Address _address) {
-        VestingSchedule schedule = vestingSchedule.get(_id);
+        VestingSchedule schedule = _getSchedule(_id);
         _require(schedule != null, "vesting was not registered");
-        AccountInfo info = accountInfo.at(_id).get(_address);
-        _require(info != null, "vesting entry is not found");
+        _checkSealed(_id);
+        VestingAccount account = _getAccount(_id, _address);
+        _require(account != null, "vesting entry is not found");
 
-        BigInteger claimed = accountClaimed.at(_id).getOrDefault(_address, BigInteger.ZERO);
-        if(info.getTotalAmount().compareTo(claimed) <= 0)
+        BigInteger claimed = account.getClaimed();
+        if(account.getTotalAmount().compareTo(claimed) <= 0)
             return BigInteger.ZERO;
 
-        BigInteger vestedAmount = _vestedAmountFrom(schedule.type, schedule.startTime, schedule.endTime, vestingTimes.at(_id), Context.getBlockTimestamp(), info);
+        BigInteger vestedAmount = _vestedAmountFrom(_id, schedule, Context.getBlockTimestamp(), account.getTotalAmount());
         if(vestedAmount.compareTo(claimed) <= 0)
             return BigInteger.ZERO;
 
@@ -397,10 +932,52 @@ public class Vesting {
     }
 
     @External(readonly = true)
-    public List vestingTimes(int _id) {
+    public Map cliffInfo(int _id) {
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null || !schedule.hasCliff()) return Map.of();
+        return Map.of(
+                "cliffTime", schedule.cliffTime,
+                "cliffRate", schedule.cliffRate
+        );
+    }
+
+    @External(readonly = true)
+    public long vestingTimeCount(int _id) {
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null) return 0;
+        if(schedule.type == VestingScheduleType.Custom)
+            return VestingCurve.count(_getCurve(schedule));
+        return VestingScheduleType.totalCount(schedule);
+    }
+
+    @External(readonly = true)
+    public List vestingTimes(int _id, @Optional long _offset, @Optional long _limit) {
+        _require(_offset >= 0 && _limit >= 0 && _limit <= MAX_QUERY_COUNT, "invalid range");
+        List list = new ArrayList();
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null) return list;
+
+        byte[] curve = schedule.type == VestingScheduleType.Custom ? _getCurve(schedule) : null;
+        long size = curve != null ? VestingCurve.count(curve) : VestingScheduleType.totalCount(schedule);
+        // the page is capped even if _limit is omitted, vestingTimeCount() gives the total
+        long end = Math.min(size, _offset + (_limit > 0 ? _limit : MAX_QUERY_COUNT));
+        for(long i=_offset; i<end; i++) {
+            list.add(curve != null ? VestingCurve.timeAt(schedule.startTime, curve, (int) i)
+                    : VestingScheduleType.vestingTimeAt(schedule, i));
+        }
+        return list;
+    }
+
+    @External(readonly = true)
+    public List vestingRates(int _id) {
         List list = new ArrayList();
-        for(int i=0; i<vestingTimes.at(_id).size(); i++) {
-            list.add(vestingTimes.at(_id).get(i));
+        VestingSchedule schedule = _getSchedule(_id);
+        if(schedule == null || schedule.type != VestingScheduleType.Custom) return list;
+
+        byte[] curve = _getCurve(schedule);
+
+        for(int i=0; i<VestingCurve.count(curve); i++) {
+            list.add(VestingCurve.rateAt(curve, i));
         }
         return list;
     }
@@ -414,6 +991,21 @@ public class Vesting {
     @EventLog
     public void Claimed(Address _token, Address _recipient, BigInteger _amount) {}
 
+    @EventLog
+    public void ClaimedMany(Address _token, Address _recipient, BigInteger _amount, int _count) {}
+
+    @EventLog
+    public void Distributed(int _id, int _nextIndex, BigInteger _amount) {}
+
+    @EventLog
+    public void MerkleRootSet(int _id, byte[] _merkleRoot, BigInteger _totalAmount) {}
+
+    @EventLog
+    public void RegistrationOpened(int _id) {}
+
+    @EventLog
+    public void RegistrationSealed(int _id, int _accountCount, BigInteger _totalAmount) {}
+
     @EventLog
     public void RegisteredOnetimeVesting(int _id, Address _token, long _startTime) {}
 
@@ -434,4 +1026,14 @@ public class Vesting {
 
     @EventLog
     public void RegisteredYearlyVesting(int _id, Address _token, long _startTime, long _endTime, int _month, int _day, int _hour) {}
+
+    @EventLog
+    public void RegisteredCliffLinearVesting(int _id, Address _token, long _startTime, long _cliffTime, int _cliffRate, long _endTime) {}
+
+    @EventLog
+    public void RegisteredCliffMonthlyVesting(int _id, Address _token, long _startTime, long _cliffTime, int _cliffRate, long _endTime,
+                                              int _day, int _hour) {}
+
+    @EventLog
+    public void RegisteredCustomVesting(int _id, Address _token, long _startTime, long _endTime, int _count) {}
 }
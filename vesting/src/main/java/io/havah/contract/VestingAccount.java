@@ -0,0 +1,62 @@
+package io.havah.contract;
+
+import score.ObjectReader;
+import score.ObjectWriter;
+
+import java.math.BigInteger;
+
+/**
+ * Per-account state of a vesting, the total amount, the claimed amount and the enumeration index are stored together.
+ */
+public class VestingAccount {
+    private BigInteger totalAmount;
+    private BigInteger claimed;
+    private int index;
+    // loaded from the storage layout before VestingAccount
+    boolean legacy;
+
+    public VestingAccount(BigInteger totalAmount, BigInteger claimed, int index) {
+        this.totalAmount = totalAmount;
+        this.claimed = claimed;
+        this.index = index;
+    }
+
+    public BigInteger getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigInteger totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public BigInteger getClaimed() {
+        return claimed;
+    }
+
+    public void setClaimed(BigInteger claimed) {
+        this.claimed = claimed;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public static void writeObject(ObjectWriter w, VestingAccount a) {
+        w.beginList(3);
+        w.write(a.totalAmount);
+        w.write(a.claimed);
+        w.write(a.index);
+        w.end();
+    }
+
+    public static VestingAccount readObject(ObjectReader r) {
+        r.beginList();
+        VestingAccount a = new VestingAccount(r.readBigInteger(), r.readBigInteger(), r.readInt());
+        r.end();
+        return a;
+    }
+}
@@ -0,0 +1,66 @@
+package io.havah.contract;
+
+/**
+ * Packed unlock curve of Custom vesting type.
+ * The curve is a sequence of fixed width entries, each of them has the time offset from the start time of the schedule
+ * (7 bytes, big-endian) and the cumulative rate in basis points (2 bytes, big-endian).
+ * Entries have the same width, so the rate at a time can be found by binary search on the encoded bytes.
+ */
+public class VestingCurve {
+    public static final int FULL_RATE = 10000;
+    static final int OFFSET_SIZE = 7;
+    static final int RATE_SIZE = 2;
+    static final int ENTRY_SIZE = OFFSET_SIZE + RATE_SIZE;
+
+    public static byte[] encode(long startTime, long[] times, int[] rates) {
+        byte[] curve = new byte[times.length * ENTRY_SIZE];
+        for(int i=0; i<times.length; i++) {
+            int pos = i * ENTRY_SIZE;
+            long offset = times[i] - startTime;
+            for(int j=OFFSET_SIZE-1; j>=0; j--) {
+                curve[pos + j] = (byte) offset;
+                offset >>>= 8;
+            }
+            curve[pos + OFFSET_SIZE] = (byte) (rates[i] >>> 8);
+            curve[pos + OFFSET_SIZE + 1] = (byte) rates[i];
+        }
+        return curve;
+    }
+
+    public static int count(byte[] curve) {
+        return curve.length / ENTRY_SIZE;
+    }
+
+    public static long timeAt(long startTime, byte[] curve, int index) {
+        int pos = index * ENTRY_SIZE;
+        long offset = 0;
+        for(int j=0; j<OFFSET_SIZE; j++) {
+            offset = (offset << 8) | (curve[pos + j] & 0xff);
+        }
+        return startTime + offset;
+    }
+
+    public static int rateAt(byte[] curve, int index) {
+        int pos = index * ENTRY_SIZE + OFFSET_SIZE;
+        return ((curve[pos] & 0xff) << 8) | (curve[pos + 1] & 0xff);
+    }
+
+    /**
+     * Returns the cumulative rate of the last entry whose time is less than or equal to the given time.
+     */
+    public static int rateOf(long startTime, byte[] curve, long time) {
+        int lo = 0;
+        int hi = count(curve) - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timeAt(startTime, curve, mid) <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found < 0 ? 0 : rateAt(curve, found);
+    }
+}
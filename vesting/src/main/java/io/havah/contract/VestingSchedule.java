@@ -16,6 +16,12 @@ public class VestingSchedule {
     int day;
     int weekday;
     int hour;
+    // the fields below are stored only by VestingScheduleCodec, the list format keeps the 9 fields of the old records
+    // keccak-256 of the unlock curve of Custom type, the curve is shared by the schedules with the same curve
+    byte[] curveHash;
+    // the time and the rate(basis points) of the cliff of CliffLinear and CliffMonthly types
+    long cliffTime;
+    int cliffRate;
 
     public VestingScheduleType getType() {
         return type;
@@ -89,6 +95,34 @@ public class VestingSchedule {
         this.hour = hour;
     }
 
+    public byte[] getCurveHash() {
+        return curveHash;
+    }
+
+    public void setCurveHash(byte[] curveHash) {
+        this.curveHash = curveHash;
+    }
+
+    public long getCliffTime() {
+        return cliffTime;
+    }
+
+    public void setCliffTime(long cliffTime) {
+        this.cliffTime = cliffTime;
+    }
+
+    public int getCliffRate() {
+        return cliffRate;
+    }
+
+    public void setCliffRate(int cliffRate) {
+        this.cliffRate = cliffRate;
+    }
+
+    boolean hasCliff() {
+        return type == VestingScheduleType.CliffLinear || type == VestingScheduleType.CliffMonthly;
+    }
+
     public static void writeObject(ObjectWriter w, VestingSchedule v) {
         w.beginList(9);
         w.write(v.type);
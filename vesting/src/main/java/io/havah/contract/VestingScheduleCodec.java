@@ -0,0 +1,138 @@
+package io.havah.contract;
+
+import score.Address;
+
+/**
+ * Compact encoding of VestingSchedule.
+ * It starts with the version, the ordinal of the type, the token address and the start time as the offset from
+ * GENESIS_TIMESTAMP, then only the fields which are used by the type follow. The other times are stored as the offsets
+ * from the start time, and numbers are unsigned varints(7 bits per byte, least significant group first).
+ * The ordinal of VestingScheduleType is stored, so new types must be appended to the end of the enum.
+ */
+public class VestingScheduleCodec {
+    public static final byte VERSION = 1;
+    static final int MAX_SIZE = 2 + Address.LENGTH + 6 * 10 + 32;
+
+    private final byte[] buf;
+    private int pos;
+
+    private VestingScheduleCodec(byte[] buf, int pos) {
+        this.buf = buf;
+        this.pos = pos;
+    }
+
+    public static byte[] encode(VestingSchedule s) {
+        VestingScheduleCodec c = new VestingScheduleCodec(new byte[MAX_SIZE], 0);
+        c.buf[c.pos++] = VERSION;
+        c.buf[c.pos++] = (byte) s.type.ordinal();
+        System.arraycopy(s.token.toByteArray(), 0, c.buf, c.pos, Address.LENGTH);
+        c.pos += Address.LENGTH;
+        c.putVarint(s.startTime - Datetime.GENESIS_TIMESTAMP);
+        if(s.type != VestingScheduleType.Onetime)
+            c.putVarint(s.endTime - s.startTime);
+        switch (s.type) {
+            case Periodic:
+                c.putVarint(s.timeInterval);
+                break;
+            case Daily:
+                c.buf[c.pos++] = (byte) s.hour;
+                break;
+            case Weekly:
+                c.buf[c.pos++] = (byte) s.weekday;
+                c.buf[c.pos++] = (byte) s.hour;
+                break;
+            case Yearly:
+                c.buf[c.pos++] = (byte) s.month;
+            case Monthly:
+                c.buf[c.pos++] = (byte) s.day;
+                c.buf[c.pos++] = (byte) s.hour;
+                break;
+            case Custom:
+                System.arraycopy(s.curveHash, 0, c.buf, c.pos, s.curveHash.length);
+                c.pos += s.curveHash.length;
+                break;
+            case CliffMonthly:
+                c.buf[c.pos++] = (byte) s.day;
+                c.buf[c.pos++] = (byte) s.hour;
+            case CliffLinear:
+                c.putVarint(s.cliffTime - s.startTime);
+                c.putVarint(s.cliffRate);
+        }
+
+        byte[] data = new byte[c.pos];
+        System.arraycopy(c.buf, 0, data, 0, c.pos);
+        return data;
+    }
+
+    public static VestingSchedule decode(byte[] data) {
+        if(data[0] != VERSION)
+            throw new IllegalArgumentException("unknown schedule version");
+
+        VestingScheduleCodec c = new VestingScheduleCodec(data, 1);
+        VestingSchedule s = new VestingSchedule();
+        s.setType(VestingScheduleType.values()[data[c.pos++]]);
+        byte[] token = new byte[Address.LENGTH];
+        System.arraycopy(data, c.pos, token, 0, Address.LENGTH);
+        c.pos += Address.LENGTH;
+        s.setToken(new Address(token));
+        s.setStartTime(Datetime.GENESIS_TIMESTAMP + c.getVarint());
+        if(s.type != VestingScheduleType.Onetime)
+            s.setEndTime(s.startTime + c.getVarint());
+        s.setMonth(-1);
+        s.setDay(-1);
+        s.setWeekday(-1);
+        s.setHour(-1);
+        switch (s.type) {
+            case Periodic:
+                s.setTimeInterval(c.getVarint());
+                break;
+            case Daily:
+                s.setHour(data[c.pos++]);
+                break;
+            case Weekly:
+                s.setWeekday(data[c.pos++]);
+                s.setHour(data[c.pos++]);
+                break;
+            case Yearly:
+                s.setMonth(data[c.pos++]);
+            case Monthly:
+                s.setDay(data[c.pos++]);
+                s.setHour(data[c.pos++]);
+                break;
+            case Custom:
+            {
+                byte[] curveHash = new byte[data.length - c.pos];
+                System.arraycopy(data, c.pos, curveHash, 0, curveHash.length);
+                s.setCurveHash(curveHash);
+                break;
+            }
+            case CliffMonthly:
+                s.setDay(data[c.pos++]);
+                s.setHour(data[c.pos++]);
+            case CliffLinear:
+                s.setCliffTime(s.startTime + c.getVarint());
+                s.setCliffRate((int) c.getVarint());
+        }
+        return s;
+    }
+
+    private void putVarint(long value) {
+        while((value & ~0x7fL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    private long getVarint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos++];
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+}
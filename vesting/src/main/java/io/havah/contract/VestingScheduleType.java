@@ -2,9 +2,8 @@ package io.havah.contract;
 
 import score.ObjectReader;
 import score.ObjectWriter;
-import scorex.util.ArrayList;
 
-import java.util.List;
+import java.math.BigInteger;
 
 public enum VestingScheduleType {
     Onetime,
@@ -13,7 +12,10 @@ public enum VestingScheduleType {
     Daily,
     Weekly,
     Monthly,
-    Yearly;
+    Yearly,
+    Custom,
+    CliffLinear,
+    CliffMonthly;
 
     public static void writeObject(ObjectWriter w, VestingScheduleType vs) {
         w.beginList(1);
@@ -28,139 +30,195 @@ public enum VestingScheduleType {
         return VestingScheduleType.valueOf(name);
     }
 
-    public static List calculateVestingTime(VestingSchedule schedule) {
-        List list = new ArrayList();
+    /**
+     * Returns the vested fraction of the schedule at the given time as [numerator, denominator].
+     * The curve is used only for Custom type. It doesn't touch the storage, so the same result can be computed off-chain.
+     */
+    public static BigInteger[] vestedRatio(VestingSchedule schedule, byte[] curve, long time) {
+        long startTime = schedule.startTime;
+        long endTime = schedule.endTime;
+        if (schedule.type == Onetime) {
+            return _ratio(startTime <= time ? 1 : 0, 1);
+        }
+        if (time >= endTime) {
+            return _ratio(1, 1);
+        }
+        switch (schedule.type) {
+            case Linear:
+                if (time < startTime) {
+                    return _ratio(0, 1);
+                }
+                return _ratio(time - startTime, endTime - startTime);
+            case Custom:
+                return _ratio(VestingCurve.rateOf(startTime, curve, time), VestingCurve.FULL_RATE);
+            case CliffLinear:
+                if (time < schedule.cliffTime) {
+                    return _ratio(0, 1);
+                }
+                return _cliffRatio(schedule.cliffRate, time - schedule.cliffTime, endTime - schedule.cliffTime);
+            case CliffMonthly:
+                if (time < schedule.cliffTime) {
+                    return _ratio(0, 1);
+                }
+                VestingSchedule monthly = afterCliff(schedule);
+                return _cliffRatio(schedule.cliffRate, passedCount(monthly, time), totalCount(monthly));
+            default:
+        }
+        return _ratio(passedCount(schedule, time), totalCount(schedule));
+    }
+
+    public static BigInteger vestedAmount(BigInteger[] ratio, BigInteger total) {
+        if (ratio[0].equals(ratio[1])) {
+            return total;
+        }
+        return total.multiply(ratio[0]).divide(ratio[1]);
+    }
+
+    static BigInteger[] _ratio(long numerator, long denominator) {
+        return new BigInteger[] { BigInteger.valueOf(numerator), BigInteger.valueOf(denominator) };
+    }
+
+    // the cliff rate and the passed part of the rest, (cliffRate * total + (FULL_RATE - cliffRate) * passed) / (FULL_RATE * total)
+    static BigInteger[] _cliffRatio(int cliffRate, long passed, long total) {
+        BigInteger numerator = BigInteger.valueOf(cliffRate).multiply(BigInteger.valueOf(total))
+                .add(BigInteger.valueOf(VestingCurve.FULL_RATE - cliffRate).multiply(BigInteger.valueOf(passed)));
+        return new BigInteger[] { numerator, BigInteger.valueOf(VestingCurve.FULL_RATE).multiply(BigInteger.valueOf(total)) };
+    }
+
+    /**
+     * Returns the number of vesting times of the schedule which are less than or equal to the given time.
+     * Vesting times are never materialized, they are derived from the schedule fields by calendar arithmetic.
+     */
+    public static long passedCount(VestingSchedule schedule, long time) {
+        switch (schedule.type) {
+            case Onetime:
+                return time >= schedule.startTime ? 1 : 0;
+            case Linear:
+                return 0;
+            case CliffLinear:
+                return time >= schedule.cliffTime ? 1 : 0;
+            case CliffMonthly:
+                return time >= schedule.cliffTime ? 1 + passedCount(afterCliff(schedule), time) : 0;
+            default:
+        }
+        long bound = Math.min(time, _lastTime(schedule));
+        if (bound < schedule.startTime)
+            return 0;
+        return Math.max(0, _lastPosition(schedule, bound) - _firstPosition(schedule) + 1);
+    }
+
+    public static long totalCount(VestingSchedule schedule) {
         switch (schedule.type) {
             case Onetime:
-                list.add(schedule.startTime);
-                break;
+                return 1;
             case Linear:
-                // do nothing..
-                break;
+                return 0;
+            case CliffLinear:
+                return 1;
+            case CliffMonthly:
+                return 1 + totalCount(afterCliff(schedule));
+            default:
+        }
+        return passedCount(schedule, _lastTime(schedule));
+    }
+
+    public static long vestingTimeAt(VestingSchedule schedule, long index) {
+        if (schedule.type == Onetime)
+            return schedule.startTime;
+        if (schedule.type == CliffLinear || schedule.type == CliffMonthly) {
+            if (index == 0)
+                return schedule.cliffTime;
+            return vestingTimeAt(afterCliff(schedule), index - 1);
+        }
+        return _timeAt(schedule, _firstPosition(schedule) + index);
+    }
+
+    /**
+     * Returns the Monthly schedule of the remainder of CliffMonthly type, its vesting times are after the cliff time.
+     */
+    public static VestingSchedule afterCliff(VestingSchedule schedule) {
+        VestingSchedule monthly = new VestingSchedule();
+        monthly.setType(Monthly);
+        monthly.setStartTime(schedule.cliffTime + 1);
+        monthly.setEndTime(schedule.endTime);
+        monthly.setDay(schedule.day);
+        monthly.setHour(schedule.hour);
+        return monthly;
+    }
+
+    // vesting times of Periodic type must be less than the end time, the others can be equal to it.
+    static long _lastTime(VestingSchedule schedule) {
+        return schedule.type == Periodic ? schedule.endTime - 1 : schedule.endTime;
+    }
+
+    static long _firstPosition(VestingSchedule schedule) {
+        long position = _positionOf(schedule, schedule.startTime);
+        return _timeAt(schedule, position) < schedule.startTime ? position + 1 : position;
+    }
+
+    static long _lastPosition(VestingSchedule schedule, long time) {
+        long position = _positionOf(schedule, time);
+        return _timeAt(schedule, position) > time ? position - 1 : position;
+    }
+
+    // position is the sequence number of the period(interval, day, week, month or year) which includes the time.
+    static long _positionOf(VestingSchedule schedule, long time) {
+        switch (schedule.type) {
             case Periodic:
-            {
-                long cur = schedule.startTime;
-                while (cur < schedule.endTime) {
-                    list.add(cur);
-                    cur += schedule.timeInterval;
-                }
-            }
-            break;
+                return Math.floorDiv(time - schedule.startTime, schedule.timeInterval);
             case Daily:
-            {
-                long startDt = Datetime.getDateFromTime(schedule.startTime);
-                long endDt = Datetime.getDateFromTime(schedule.endTime);
-                long curDt = startDt;
-                while (true) {
-                    long dayTime = curDt * Datetime.ONE_DAY;
-                    long cur = dayTime + (schedule.hour * Datetime.HOUR);
-                    if(cur >= schedule.startTime) {
-                        if (cur > schedule.endTime) break;
-                        list.add(cur);
-                    }
-                    curDt++;
-                    if(curDt > endDt) break;
-                }
-            }
-            break;
+                return Datetime.getDateFromTime(time);
             case Weekly:
+                return Math.floorDiv(Datetime.getDateFromTime(time) - _weekOffset(schedule), 7);
+            case Monthly:
             {
-                long startDt = Datetime.getDateFromTime(schedule.startTime);
-                long endDt = Datetime.getDateFromTime(schedule.endTime);
-                long curDt = startDt;
-                while (true) {
-                    long dayTime = curDt * Datetime.ONE_DAY;
-                    int day = Datetime.getWeek(dayTime);
-                    if(schedule.weekday == day) {
-                        long cur = dayTime + (schedule.hour * Datetime.HOUR);
-                        if (cur >= schedule.startTime) {
-                            if (cur > schedule.endTime) break;
-                            list.add(cur);
-                        }
-                    }
-                    curDt++;
-                    if(curDt > endDt) break;
-                }
+                long[] info = Datetime.getMonthlyInfo(time);
+                return info[0] * 12 + info[1] - 1;
             }
-            break;
+            case Yearly:
+                return Datetime.getYearInfo(time)[0];
+            default:
+                throw new IllegalArgumentException("not periodical type");
+        }
+    }
+
+    static long _timeAt(VestingSchedule schedule, long position) {
+        switch (schedule.type) {
+            case Periodic:
+                return schedule.startTime + position * schedule.timeInterval;
+            case Daily:
+                return position * Datetime.ONE_DAY + schedule.hour * Datetime.HOUR;
+            case Weekly:
+                return (position * 7 + _weekOffset(schedule)) * Datetime.ONE_DAY + schedule.hour * Datetime.HOUR;
             case Monthly:
             {
-                long[] info = Datetime.getMonthlyInfo(schedule.startTime);
-                long year = info[0];
-                long month = info[1];
-                long monthTime = info[2];
-
-                info = Datetime.getMonthlyInfo(schedule.endTime);
-                long endYear = info[0];
-                long endMonth = info[1];
-                while (true) {
-                    long monthday = Datetime.getMonthDay(year, month);
-                    long dayTime, cur;
-                    if (schedule.day == 0) {
-                        dayTime = monthTime + ((monthday - 1) * Datetime.ONE_DAY);
-                        cur = dayTime + (schedule.hour * Datetime.HOUR);
-                    } else if (schedule.day > monthday) {
-                        dayTime = monthTime + (monthday * Datetime.ONE_DAY);
-                        cur = dayTime;
-                    } else {
-                        dayTime = monthTime + ((schedule.day - 1) * Datetime.ONE_DAY);
-                        cur = dayTime + (schedule.hour * Datetime.HOUR);
-                    }
-
-                    if (cur >= schedule.startTime) {
-                        if (cur > schedule.endTime) break;
-                        list.add(cur);
-                    }
-
-                    monthTime += monthday * Datetime.ONE_DAY;
-                    month++;
-                    if(month > 12) {
-                        year++;
-                        month = 1;
-                    }
-                    if(endYear < year || (endYear == year && endMonth < month))
-                        break;
-                }
+                long year = position / 12;
+                long month = position % 12 + 1;
+                long monthTime = Datetime.getYearStartTime(year) + Datetime.getMonthAccTime(year, month - 1);
+                return _dayTimeOf(schedule, monthTime, Datetime.getMonthDay(year, month));
             }
-            break;
             case Yearly:
             {
-                long[] info = Datetime.getYearInfo(schedule.startTime);
-                long year = info[0];
-                long yearTime = info[1];
-
-                info = Datetime.getYearInfo(schedule.endTime);
-                long endYear = info[0];
-                while (true) {
-                    long monthday = Datetime.getMonthDay(year, schedule.month);
-                    long monthTime = yearTime + Datetime.getMonthAccTime(year, schedule.month - 1);
-                    long dayTime, cur;
-                    if (schedule.day == 0) {
-                        dayTime = monthTime + ((monthday - 1) * Datetime.ONE_DAY);
-                        cur = dayTime + (schedule.hour * Datetime.HOUR);
-                    } else if (schedule.day > monthday) {
-                        dayTime = monthTime + (monthday * Datetime.ONE_DAY);
-                        cur = dayTime;
-                    } else {
-                        dayTime = monthTime + ((schedule.day - 1) * Datetime.ONE_DAY);
-                        cur = dayTime + (schedule.hour * Datetime.HOUR);
-                    }
-
-                    if (cur >= schedule.startTime) {
-                        if (cur > schedule.endTime) break;
-                        list.add(cur);
-                    }
-
-                    yearTime += (Datetime.isLeapYear(year) ? Datetime.LEAF_YEAR : Datetime.NORMAL_YEAR);
-                    year++;
-                    if(endYear < year)
-                        break;
-                }
+                long monthTime = Datetime.getYearStartTime(position) + Datetime.getMonthAccTime(position, schedule.month - 1);
+                return _dayTimeOf(schedule, monthTime, Datetime.getMonthDay(position, schedule.month));
             }
-            break;
             default:
+                throw new IllegalArgumentException("not periodical type");
         }
+    }
+
+    // the first date(days from 1970.01.01, Thursday) which falls on the weekday of the schedule.
+    static long _weekOffset(VestingSchedule schedule) {
+        return Math.floorMod(schedule.weekday - Datetime.GENESIS_WEEK, 7);
+    }
 
-        return list;
+    // if the day does not exist in the month, the vesting time is the 1st day of the following month.
+    static long _dayTimeOf(VestingSchedule schedule, long monthTime, long monthday) {
+        if (schedule.day == 0) {
+            return monthTime + ((monthday - 1) * Datetime.ONE_DAY) + (schedule.hour * Datetime.HOUR);
+        } else if (schedule.day > monthday) {
+            return monthTime + (monthday * Datetime.ONE_DAY);
+        }
+        return monthTime + ((schedule.day - 1) * Datetime.ONE_DAY) + (schedule.hour * Datetime.HOUR);
     }
 }
@@ -0,0 +1,44 @@
+package io.havah.contract;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DatetimeTest {
+    private static final long FIRST_YEAR = Datetime.GENESIS_YEAR;
+    private static final long LAST_YEAR = 2200;
+
+    // checks every day boundary from 2024 to 2200, and 1us before and after it
+    @Test
+    void yearAndMonthInfo() {
+        long lastDay = Datetime.daysFromCivil(LAST_YEAR + 1, 1, 1);
+        for (long day = Datetime.GENESIS_TIMESTAMP / Datetime.ONE_DAY; day <= lastDay; day++) {
+            long boundary = day * Datetime.ONE_DAY;
+            for (long time : new long[] { boundary - 1, boundary, boundary + 1 }) {
+                assertArrayEquals(LegacyVestingTime.getYearInfo(time), Datetime.getYearInfo(time), "time=" + time);
+                assertArrayEquals(LegacyVestingTime.getMonthlyInfo(time), Datetime.getMonthlyInfo(time), "time=" + time);
+            }
+        }
+    }
+
+    @Test
+    void monthAccTime() {
+        for (long year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            for (long month = 0; month <= 12; month++) {
+                assertEquals(LegacyVestingTime.getMonthAccTime(year, month), Datetime.getMonthAccTime(year, month),
+                        year + "." + month);
+            }
+        }
+    }
+
+    @Test
+    void yearStartTime() {
+        for (long year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            long start = Datetime.getYearStartTime(year);
+            assertArrayEquals(new long[] { year, start }, LegacyVestingTime.getYearInfo(start));
+            if (year > FIRST_YEAR)
+                assertEquals(year - 1, LegacyVestingTime.getYearInfo(start - 1)[0]);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.havah.contract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The vesting time list and the calendar functions as they were before the vesting times were computed by
+ * calendar arithmetic. They are kept only as the reference of the equivalence tests.
+ */
+class LegacyVestingTime {
+    static long[] getYearInfo(long time) {
+        long year = Datetime.GENESIS_YEAR;
+        long accTime = Datetime.GENESIS_TIMESTAMP;
+        while (true) {
+            long temp = accTime + (Datetime.isLeapYear(year) ? Datetime.LEAF_YEAR : Datetime.NORMAL_YEAR);
+            if(temp > time)
+                break;
+            year++;
+            accTime = temp;
+        }
+        return new long[] { year, accTime};
+    }
+
+    static long[] getMonthlyInfo(long time) {
+        long[] info = getYearInfo(time);
+        long year = info[0];
+        long accTime = info[1];
+        for(int i=1; i<=12; i++) {
+            int day = Datetime.getMonthDay(year, i);
+            long tmp = accTime + (day * Datetime.ONE_DAY);
+            if(tmp > time)
+                return new long[] {year, i, accTime};
+            accTime = tmp;
+        }
+        return new long[]{};
+    }
+
+    static long getMonthAccTime(long year, long month) {
+        long accTime = 0;
+        for(int i=1; i<=month; i++) {
+            int day = Datetime.getMonthDay(year, i);
+            accTime += (day * Datetime.ONE_DAY);
+        }
+        return accTime;
+    }
+
+    static List<Long> calculateVestingTime(VestingSchedule schedule) {
+        List<Long> list = new ArrayList<>();
+        switch (schedule.type) {
+            case Onetime:
+                list.add(schedule.startTime);
+                break;
+            case Linear:
+                // do nothing..
+                break;
+            case Periodic:
+            {
+                long cur = schedule.startTime;
+                while (cur < schedule.endTime) {
+                    list.add(cur);
+                    cur += schedule.timeInterval;
+                }
+            }
+            break;
+            case Daily:
+            {
+                long startDt = Datetime.getDateFromTime(schedule.startTime);
+                long endDt = Datetime.getDateFromTime(schedule.endTime);
+                long curDt = startDt;
+                while (true) {
+                    long dayTime = curDt * Datetime.ONE_DAY;
+                    long cur = dayTime + (schedule.hour * Datetime.HOUR);
+                    if(cur >= schedule.startTime) {
+                        if (cur > schedule.endTime) break;
+                        list.add(cur);
+                    }
+                    curDt++;
+                    if(curDt > endDt) break;
+                }
+            }
+            break;
+            case Weekly:
+            {
+                long startDt = Datetime.getDateFromTime(schedule.startTime);
+                long endDt = Datetime.getDateFromTime(schedule.endTime);
+                long curDt = startDt;
+                while (true) {
+                    long dayTime = curDt * Datetime.ONE_DAY;
+                    int day = Datetime.getWeek(dayTime);
+                    if(schedule.weekday == day) {
+                        long cur = dayTime + (schedule.hour * Datetime.HOUR);
+                        if (cur >= schedule.startTime) {
+                            if (cur > schedule.endTime) break;
+                            list.add(cur);
+                        }
+                    }
+                    curDt++;
+                    if(curDt > endDt) break;
+                }
+            }
+            break;
+            case Monthly:
+            {
+                long[] info = getMonthlyInfo(schedule.startTime);
+                long year = info[0];
+                long month = info[1];
+                long monthTime = info[2];
+
+                info = getMonthlyInfo(schedule.endTime);
+                long endYear = info[0];
+                long endMonth = info[1];
+                while (true) {
+                    long monthday = Datetime.getMonthDay(year, month);
+                    long dayTime, cur;
+                    if (schedule.day == 0) {
+                        dayTime = monthTime + ((monthday - 1) * Datetime.ONE_DAY);
+                        cur = dayTime + (schedule.hour * Datetime.HOUR);
+                    } else if (schedule.day > monthday) {
+                        dayTime = monthTime + (monthday * Datetime.ONE_DAY);
+                        cur = dayTime;
+                    } else {
+                        dayTime = monthTime + ((schedule.day - 1) * Datetime.ONE_DAY);
+                        cur = dayTime + (schedule.hour * Datetime.HOUR);
+                    }
+
+                    if (cur >= schedule.startTime) {
+                        if (cur > schedule.endTime) break;
+                        list.add(cur);
+                    }
+
+                    monthTime += monthday * Datetime.ONE_DAY;
+                    month++;
+                    if(month > 12) {
+                        year++;
+                        month = 1;
+                    }
+                    if(endYear < year || (endYear == year && endMonth < month))
+                        break;
+                }
+            }
+            break;
+            case Yearly:
+            {
+                long[] info = getYearInfo(schedule.startTime);
+                long year = info[0];
+                long yearTime = info[1];
+
+                info = getYearInfo(schedule.endTime);
+                long endYear = info[0];
+                while (true) {
+                    long monthday = Datetime.getMonthDay(year, schedule.month);
+                    long monthTime = yearTime + getMonthAccTime(year, schedule.month - 1);
+                    long dayTime, cur;
+                    if (schedule.day == 0) {
+                        dayTime = monthTime + ((monthday - 1) * Datetime.ONE_DAY);
+                        cur = dayTime + (schedule.hour * Datetime.HOUR);
+                    } else if (schedule.day > monthday) {
+                        dayTime = monthTime + (monthday * Datetime.ONE_DAY);
+                        cur = dayTime;
+                    } else {
+                        dayTime = monthTime + ((schedule.day - 1) * Datetime.ONE_DAY);
+                        cur = dayTime + (schedule.hour * Datetime.HOUR);
+                    }
+
+                    if (cur >= schedule.startTime) {
+                        if (cur > schedule.endTime) break;
+                        list.add(cur);
+                    }
+
+                    yearTime += (Datetime.isLeapYear(year) ? Datetime.LEAF_YEAR : Datetime.NORMAL_YEAR);
+                    year++;
+                    if(endYear < year)
+                        break;
+                }
+            }
+            break;
+            default:
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,68 @@
+package io.havah.contract;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import score.Address;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VestingRegistrationTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final Address token = sm.createAccount().getAddress();
+    private static final BigInteger AMOUNT = new BigInteger("1000000000000000000000");
+    private static Score vesting;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        vesting = sm.deploy(owner, Vesting.class, "vesting");
+    }
+
+    private static AccountInfo[] accounts(int count) {
+        AccountInfo[] accounts = new AccountInfo[count];
+        for(int i=0; i<count; i++) {
+            accounts[i] = new AccountInfo();
+            accounts[i].setAddress(sm.createAccount().getAddress());
+            accounts[i].setTotalAmount(AMOUNT);
+        }
+        return accounts;
+    }
+
+    private static int registerVesting() {
+        long startTime = sm.getBlock().getTimestamp() + 86400_000_000L;
+        vesting.invoke(owner, "registerOnetimeVesting", token, startTime, new AccountInfo[0]);
+        return (int) vesting.call("lastId");
+    }
+
+    @Test
+    void setAccountIndexBeforeAccounts() {
+        int id = registerVesting();
+        assertDoesNotThrow(() -> vesting.invoke(owner, "setAccountIndex", id, false));
+        assertDoesNotThrow(() -> vesting.invoke(owner, "setAccountIndex", id, true));
+    }
+
+    @Test
+    void setAccountIndexDuringRegistration() {
+        int id = registerVesting();
+        vesting.invoke(owner, "openRegistration", id);
+        // the index mode can't be changed while the session is open, even before the first chunk
+        assertThrows(AssertionError.class, () -> vesting.invoke(owner, "setAccountIndex", id, false));
+
+        vesting.invoke(owner, "appendVestingAccounts", id, (Object) accounts(3));
+        assertThrows(AssertionError.class, () -> vesting.invoke(owner, "setAccountIndex", id, false));
+        vesting.invoke(owner, "appendVestingAccounts", id, (Object) accounts(2));
+
+        vesting.invoke(owner, "sealRegistration", id, 5, AMOUNT.multiply(BigInteger.valueOf(5)));
+        assertThrows(AssertionError.class, () -> vesting.invoke(owner, "setAccountIndex", id, false));
+        assertEquals(5, ((List<?>) vesting.call("getAccounts", id)).size());
+    }
+}
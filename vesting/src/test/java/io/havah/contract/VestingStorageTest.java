@@ -0,0 +1,92 @@
+package io.havah.contract;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.Test;
+import score.Address;
+import score.ByteArrayObjectWriter;
+import score.Context;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VestingStorageTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final BigInteger AMOUNT = new BigInteger("1000000000000000000000");
+
+    private static int sizeOf(Object value) {
+        ByteArrayObjectWriter w = Context.newByteArrayObjectWriter("RLPn");
+        w.write(value);
+        return w.toByteArray().length;
+    }
+
+    @Test
+    void storageBytesPerAccount() {
+        Account account = sm.createAccount();
+        Address address = account.getAddress();
+        int idx = 12345;
+        BigInteger claimed = AMOUNT.divide(BigInteger.valueOf(3));
+
+        AccountInfo info = new AccountInfo();
+        info.setAddress(address);
+        info.setTotalAmount(AMOUNT);
+
+        // account_info, account_claimed, accounts_idx_dict and idx_accounts_dict
+        int legacyBytes = sizeOf(info) + sizeOf(claimed) + sizeOf(idx) + sizeOf(address);
+
+        // vesting_account and idx_accounts_dict, idx_accounts_dict is not stored if the index is disabled
+        int indexedBytes = sizeOf(new VestingAccount(AMOUNT, claimed, idx)) + sizeOf(address);
+        int unindexedBytes = sizeOf(new VestingAccount(AMOUNT, claimed, idx));
+
+        assertEquals(68, legacyBytes);
+        assertEquals(46, indexedBytes);
+        assertEquals(24, unindexedBytes);
+        assertTrue(indexedBytes < legacyBytes);
+        assertTrue(unindexedBytes < indexedBytes);
+    }
+
+    private static VestingSchedule schedule(VestingScheduleType type, int month, int day, int weekday, int hour) {
+        long startTime = 1_735_689_600_000_000L;
+        VestingSchedule schedule = new VestingSchedule();
+        schedule.setType(type);
+        schedule.setToken(sm.createAccount().getAddress());
+        schedule.setStartTime(startTime);
+        schedule.setEndTime(type == VestingScheduleType.Onetime ? 0 : startTime + 3 * 365 * 86400_000_000L);
+        schedule.setTimeInterval(type == VestingScheduleType.Periodic ? 86400_000_000L : 0);
+        schedule.setMonth(month);
+        schedule.setDay(day);
+        schedule.setWeekday(weekday);
+        schedule.setHour(hour);
+        return schedule;
+    }
+
+    @Test
+    void storageBytesPerSchedule() {
+        VestingSchedule[] schedules = new VestingSchedule[] {
+                schedule(VestingScheduleType.Onetime, -1, -1, -1, -1),
+                schedule(VestingScheduleType.Linear, -1, -1, -1, -1),
+                schedule(VestingScheduleType.Periodic, -1, -1, -1, -1),
+                schedule(VestingScheduleType.Daily, -1, -1, -1, 9),
+                schedule(VestingScheduleType.Weekly, -1, -1, 1, 9),
+                schedule(VestingScheduleType.Monthly, -1, 1, -1, 0),
+                schedule(VestingScheduleType.Yearly, 1, 1, -1, 0)
+        };
+        // RLP bytes of the list format and bytes of the compact encoding of each schedule above
+        int[][] sizes = new int[][] { {50, 30}, {56, 37}, {64, 43}, {54, 38}, {54, 39}, {55, 39}, {53, 40} };
+        for(int i=0; i<schedules.length; i++) {
+            VestingSchedule schedule = schedules[i];
+            byte[] compact = VestingScheduleCodec.encode(schedule);
+            int legacyBytes = sizeOf(schedule);
+            assertEquals(sizes[i][0], legacyBytes, schedule.getType().name());
+            assertEquals(sizes[i][1], compact.length, schedule.getType().name());
+            assertTrue(compact.length < legacyBytes);
+
+            VestingSchedule decoded = VestingScheduleCodec.decode(compact);
+            assertEquals(schedule.toMap(), decoded.toMap());
+            assertEquals(schedule.getToken(), decoded.getToken());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.havah.contract;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.Test;
+import score.Address;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VestingTimeTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final Address token = sm.createAccount().getAddress();
+
+    private static final long DAY = Datetime.ONE_DAY;
+    private static final long HOUR = Datetime.HOUR;
+
+    // the start dates around month ends, Feb 29 of the leap years and the year ends, 2100 is not a leap year
+    private static final long[][] DATES = {
+            {2024, 1, 1}, {2024, 1, 31}, {2024, 2, 28}, {2024, 2, 29}, {2024, 3, 1}, {2024, 4, 30},
+            {2024, 12, 31}, {2025, 2, 28}, {2025, 3, 1}, {2027, 12, 31}, {2028, 2, 29}, {2031, 8, 31},
+            {2099, 12, 31}, {2100, 2, 28}, {2100, 3, 1}, {2103, 2, 28}, {2104, 2, 29}, {2199, 12, 31}
+    };
+    private static final long[] OFFSETS = { 0, 1, -1, 9 * HOUR, 23 * HOUR + 59 * 60_000_000L };
+    private static final long[] DURATIONS = { 0, DAY, 45 * DAY, 400 * DAY + 1, 3 * 366 * DAY - 1 };
+
+    private static VestingSchedule schedule(VestingScheduleType type, long startTime, long endTime) {
+        VestingSchedule schedule = new VestingSchedule();
+        schedule.setType(type);
+        schedule.setStartTime(startTime);
+        schedule.setEndTime(endTime);
+        return schedule;
+    }
+
+    private static void assertSameSlots(VestingSchedule schedule) {
+        List<Long> expected = LegacyVestingTime.calculateVestingTime(schedule);
+        String msg = schedule.type + " " + schedule.startTime + "~" + schedule.endTime + " interval=" + schedule.timeInterval
+                + " month=" + schedule.month + " day=" + schedule.day + " weekday=" + schedule.weekday + " hour=" + schedule.hour;
+        assertEquals(expected.size(), VestingScheduleType.totalCount(schedule), msg);
+        for (int i = 0; i < expected.size(); i++) {
+            long time = expected.get(i);
+            assertEquals(time, VestingScheduleType.vestingTimeAt(schedule, i), msg);
+            assertEquals(i, VestingScheduleType.passedCount(schedule, time - 1), msg);
+            assertEquals(i + 1, VestingScheduleType.passedCount(schedule, time), msg);
+        }
+        assertEquals(0, VestingScheduleType.passedCount(schedule, schedule.startTime - 1), msg);
+        assertEquals(expected.size(), VestingScheduleType.passedCount(schedule, schedule.endTime + 1), msg);
+    }
+
+    private static void forEachPeriod(VestingScheduleType type, Consumer<VestingSchedule> check) {
+        for (long[] date : DATES) {
+            long day = Datetime.daysFromCivil(date[0], date[1], date[2]) * DAY;
+            for (long offset : OFFSETS) {
+                for (long duration : DURATIONS) {
+                    long startTime = day + offset;
+                    check.accept(schedule(type, startTime, startTime + duration));
+                }
+            }
+        }
+    }
+
+    @Test
+    void onetimeAndLinear() {
+        forEachPeriod(VestingScheduleType.Onetime, VestingTimeTest::assertSameSlots);
+        forEachPeriod(VestingScheduleType.Linear, VestingTimeTest::assertSameSlots);
+    }
+
+    @Test
+    void periodic() {
+        forEachPeriod(VestingScheduleType.Periodic, s -> {
+            for (long interval : new long[] { HOUR, DAY, 7 * DAY + 3, 30 * DAY }) {
+                s.setTimeInterval(interval);
+                assertSameSlots(s);
+            }
+        });
+    }
+
+    @Test
+    void daily() {
+        forEachPeriod(VestingScheduleType.Daily, s -> {
+            for (int hour : new int[] { 0, 9, 23 }) {
+                s.setHour(hour);
+                assertSameSlots(s);
+            }
+        });
+    }
+
+    @Test
+    void weekly() {
+        forEachPeriod(VestingScheduleType.Weekly, s -> {
+            for (int weekday = 0; weekday < 7; weekday++) {
+                s.setWeekday(weekday);
+                for (int hour : new int[] { 0, 23 }) {
+                    s.setHour(hour);
+                    assertSameSlots(s);
+                }
+            }
+        });
+    }
+
+    @Test
+    void monthly() {
+        forEachPeriod(VestingScheduleType.Monthly, s -> {
+            for (int day : new int[] { 0, 1, 15, 28, 29, 30, 31 }) {
+                s.setDay(day);
+                for (int hour : new int[] { 0, 23 }) {
+                    s.setHour(hour);
+                    assertSameSlots(s);
+                }
+            }
+        });
+    }
+
+    @Test
+    void yearly() {
+        forEachPeriod(VestingScheduleType.Yearly, s -> {
+            for (int month : new int[] { 1, 2, 4, 12 }) {
+                s.setMonth(month);
+                for (int day : new int[] { 0, 1, 28, 29, 30, 31 }) {
+                    s.setDay(day);
+                    for (int hour : new int[] { 0, 23 }) {
+                        s.setHour(hour);
+                        assertSameSlots(s);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    void vestingTimesPage() throws Exception {
+        Score vesting = sm.deploy(owner, Vesting.class, "vesting");
+        VestingSchedule schedule = schedule(VestingScheduleType.Daily, sm.getBlock().getTimestamp() + DAY, 0);
+        schedule.setEndTime(schedule.startTime + 2000 * DAY);
+        schedule.setHour(9);
+        vesting.invoke(owner, "registerDailyVesting", token, schedule.startTime, schedule.endTime, 9, new AccountInfo[0]);
+        int id = (int) vesting.call("lastId");
+        long count = (long) vesting.call("vestingTimeCount", id);
+        assertEquals(2000L, count);
+
+        // the omitted limit is the max page, not the whole list
+        assertEquals(Vesting.MAX_QUERY_COUNT, ((List<?>) vesting.call("vestingTimes", id, 0L, 0L)).size());
+        List<?> last = (List<?>) vesting.call("vestingTimes", id, count - 10, (long) Vesting.MAX_QUERY_COUNT);
+        assertEquals(10, last.size());
+        assertEquals(VestingScheduleType.vestingTimeAt(schedule, count - 1), last.get(9));
+
+        assertThrows(AssertionError.class, () -> vesting.call("vestingTimes", id, 0L, Vesting.MAX_QUERY_COUNT + 1L));
+        assertThrows(AssertionError.class, () -> vesting.call("vestingTimes", id, -1L, 10L));
+        assertThrows(AssertionError.class, () -> vesting.call("vestingTimes", id, 0L, -1L));
+    }
+}